@@ -0,0 +1,282 @@
+package lab6;
+
+import lab6.guswilerib.Dictionary;
+import lab6.guswilerib.Topology;
+import lab6.guswilerib.Trie;
+import lab6.guswilerib.WordFinder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.TreeSet;
+
+/**
+ * Searches game boards too large to hold in memory. Instead of loading the
+ * whole grid into game pieces, the board file is read a band of rows at a
+ * time. Each band is searched for the words that start on it, together with a
+ * halo of the rows above and below that those words can reach, and rows are
+ * dropped as soon as no later band can reach them. Memory use is bounded by
+ * the band and halo sizes rather than the board, and the words found are
+ * exactly those a search of the whole board would find.<br />
+ * <br />
+ * The halo is one less than the longest word times the furthest a single move
+ * goes up or down, so {@link WordFinder#MAX_WORD_LENGTH} - 1 rows for the
+ * usual topologies. Topologies that wrap around cannot be split into bands.
+ * <br />
+ * With -p the start cells of each band are shared between that many worker
+ * threads, each of which reuses one set of visited flags for every cell it
+ * searches; it defaults to the number of processors.<br />
+ * Usage: <tt>java lab6.BandedBoardSearch [-d dictionary.txt | -i dictionary.img]
+ * [-b band rows] [-p threads] [-o results.txt] &lt;grid&gt;</tt>
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public class BandedBoardSearch {
+    /**
+     * Number of rows words start on in each band, unless another is given
+     */
+    public static final int DEFAULT_BAND_ROWS = 64;
+
+    /**
+     * Dictionary of words known to be spelled correctly
+     */
+    private final Dictionary dictionary;
+
+    /**
+     * Moves allowed between the game pieces of a word
+     */
+    private final Topology topology;
+
+    /**
+     * Number of rows words start on in each band
+     */
+    private final int bandRows;
+
+    /**
+     * Number of rows above and below a band that its words can reach
+     */
+    private final int haloRows;
+
+    /**
+     * Number of worker threads searching each band
+     */
+    private final int parallelism;
+
+    /**
+     * Number of rows of the last board searched
+     */
+    private int rows;
+
+    /**
+     * Number of columns of the last board searched
+     */
+    private int cols;
+
+    /**
+     * Most rows held in memory at once while searching the last board
+     */
+    private int peakRows;
+
+    /**
+     * Creates a banded search
+     * @param dictionary A collection of correctly spelled words
+     * @param topology Moves allowed between the game pieces of a word
+     * @param bandRows Number of rows words start on in each band
+     * @param parallelism Number of worker threads searching each band
+     */
+    public BandedBoardSearch(Dictionary dictionary, Topology topology, int bandRows, int parallelism) {
+        if(topology.wraps()) {
+            throw new IllegalArgumentException("A board that wraps around cannot be split into bands: " + topology);
+        } else if(bandRows < 1) {
+            throw new IllegalArgumentException("Each band needs at least one row: " + bandRows);
+        } else if(parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        this.dictionary = dictionary;
+        this.topology = topology;
+        this.bandRows = bandRows;
+        this.parallelism = parallelism;
+        haloRows = topology.maxRowStep() * (WordFinder.MAX_WORD_LENGTH - 1);
+    }
+
+    /**
+     * Static entry point
+     * @param args Command line options, see the class description
+     * @throws IOException if the dictionary, the board or the results file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        String dictionaryFile = "dictionary.txt";
+        String imageFile = null;
+        int bandRows = DEFAULT_BAND_ROWS;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        String resultsFile = "results.txt";
+        String grid = null;
+        for(int i = 0; i < args.length; i++) {
+            switch(args[i]) {
+                case "-d": dictionaryFile = args[++i]; break;
+                case "-i": imageFile = args[++i]; break;
+                case "-b": bandRows = Integer.parseInt(args[++i]); break;
+                case "-p": parallelism = Integer.parseInt(args[++i]); break;
+                case "-o": resultsFile = args[++i]; break;
+                default:
+                    if(args[i].startsWith("-")) {
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                    }
+                    grid = args[i];
+            }
+        }
+        if(grid == null) {
+            System.err.println("Usage: java lab6.BandedBoardSearch [-d dictionary.txt | -i dictionary.img]"
+                    + " [-b band rows] [-p threads] [-o results.txt] <grid>");
+            System.exit(1);
+        }
+
+        Dictionary dictionary;
+        if(imageFile != null) {
+            dictionary = Dictionary.openImage(imageFile);
+        } else {
+            dictionary = new Dictionary(new Trie());
+            dictionary.load(dictionaryFile);
+        }
+        BandedBoardSearch search = new BandedBoardSearch(dictionary, Topology.EIGHT_WAY, bandRows, parallelism);
+        long start = System.nanoTime();
+        Collection<String> results = search.search(new File(grid));
+        System.out.println(String.format("Searched %,d x %,d board in %.3f s holding at most %,d rows",
+                search.getRows(), search.getCols(), (System.nanoTime() - start) / 1e9, search.getPeakRows()));
+        try(PrintWriter printStream = new PrintWriter(resultsFile)) {
+            WordSearchApp.printResults(results, printStream);
+        }
+    }
+
+    /**
+     * Searches a board file one band at a time. The file has one row of the
+     * board per line, as read by {@link GameBoard#load(File)}.
+     * @param boardFile File containing the game board
+     * @return The words found on the board, sorted
+     * @throws IOException if the file cannot be read or its rows differ in length
+     */
+    public Collection<String> search(File boardFile) throws IOException {
+        Collection<String> found = new TreeSet<>();
+        Deque<char[]> window = new ArrayDeque<>();
+        int windowStart = 0;
+        int rowsRead = 0;
+        cols = -1;
+        peakRows = 0;
+        try(BufferedReader reader = Files.newBufferedReader(boardFile.toPath(), StandardCharsets.UTF_8)) {
+            boolean more = true;
+            for(int bandStart = 0; ; bandStart += bandRows) {
+                int bandEnd = bandStart + bandRows;
+                while(more && rowsRead < bandEnd + haloRows) {
+                    String line = reader.readLine();
+                    if(line == null) {
+                        more = false;
+                    } else {
+                        if(cols != -1 && cols != line.length()) {
+                            throw new IOException("Not all rows have the same number of columns.");
+                        }
+                        cols = line.length();
+                        window.addLast(line.toCharArray());
+                        rowsRead++;
+                    }
+                }
+                if(bandStart >= rowsRead) {
+                    break;
+                }
+                bandEnd = Math.min(bandEnd, rowsRead);
+
+                // Keep the window on an even row so that hex rows keep their parity
+                int keepFrom = Math.max(0, bandStart - haloRows) & ~1;
+                while(windowStart < keepFrom) {
+                    window.removeFirst();
+                    windowStart++;
+                }
+                peakRows = Math.max(peakRows, window.size());
+                searchBand(window, bandStart - windowStart, bandEnd - windowStart, found);
+            }
+        }
+        rows = rowsRead;
+        cols = Math.max(cols, 0);
+        return found;
+    }
+
+    /**
+     * Searches the rows held in memory for the words that start on a band
+     * @param window Rows held in memory, with enough rows around the band for its words
+     * @param fromRow First row of the band, counted from the start of the window
+     * @param toRow Row after the last row of the band, counted from the start of the window
+     * @param found Where the words found are added
+     */
+    private void searchBand(Deque<char[]> window, int fromRow, int toRow, Collection<String> found) {
+        char[] letters = new char[window.size() * cols];
+        int offset = 0;
+        for(char[] row : window) {
+            System.arraycopy(row, 0, letters, offset, cols);
+            offset += cols;
+        }
+        WordFinder finder = new WordFinder(new LetterList(letters), dictionary, window.size(), cols, topology);
+        finder.startSearching(parallelism, fromRow * cols, toRow * cols);
+        found.addAll(finder.getResults());
+    }
+
+    /**
+     * Returns the number of rows of the last board searched
+     * @return Number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the number of columns of the last board searched
+     * @return Number of columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Returns the most rows held in memory at once while searching the last
+     * board, which is at most the band plus a halo above and below it
+     * @return Number of rows
+     */
+    public int getPeakRows() {
+        return peakRows;
+    }
+
+    /**
+     * Game pieces of a band, made as they are asked for from an array of
+     * letters so that the band is never held as one object per game piece
+     */
+    private static final class LetterList extends AbstractList<GamePiece<Character>> {
+        /**
+         * Letter on each game piece, row by row
+         */
+        private final char[] letters;
+
+        /**
+         * Creates the game pieces of a band
+         * @param letters Letter on each game piece, row by row
+         */
+        private LetterList(char[] letters) {
+            this.letters = letters;
+        }
+
+        @Override
+        public GamePiece<Character> get(int index) {
+            return new GamePiece<>(letters[index], false);
+        }
+
+        @Override
+        public int size() {
+            return letters.length;
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package lab6;
+
+import lab6.guswilerib.BoardFilter;
+import lab6.guswilerib.Dictionary;
+import lab6.guswilerib.ResultCache;
+import lab6.guswilerib.ResultOutputEvent;
+import lab6.guswilerib.Topology;
+import lab6.guswilerib.Trie;
+import lab6.guswilerib.WordFinder;
+import lab6.guswilerib.WordSink;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless entry point that solves many game boards against one dictionary.
+ * The dictionary is loaded once, then the boards are solved by a fixed pool
+ * of worker threads and their results are written out in the order the
+ * boards were given, either to a results file per board or to one combined
+ * file. Only a few boards per worker are in flight at once, so memory use
+ * does not grow with the number of boards.<br />
+ * <br />
+ * Usage: <tt>java lab6.BatchSolver [-d dictionary.txt | -i dictionary.img]
+ * [-p workers] [-o output directory | -c combined file] [-s] [-k cached boards] [-f] &lt;grids&gt;</tt><br />
+ * where grids is a directory, whose .txt files are all solved, or a manifest
+ * listing one board file per line. Manifest paths are relative to the
+ * manifest, and blank lines and lines starting with # are skipped. Without
+ * -o or -c each board's results are written next to it as
+ * <tt>name.results.txt</tt>. With -s each board's words are streamed into its
+ * results file as they are found, in the order they are found, instead of
+ * being collected and sorted first; this cannot be combined with -c. With -k
+ * the words found on up to the given number of boards are cached, so boards
+ * that repeat, or are rotations or mirror images of one another, are only
+ * solved once; a board found in the cache is written out whole rather than
+ * streamed, while the boards that are solved are streamed as usual. With -f
+ * each board is searched against only the words that could be on it (see
+ * BoardFilter), which helps most with small boards and with dictionaries that
+ * are not word graphs; boards found in the cache are not searched at all.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public class BatchSolver {
+    /**
+     * Number of boards queued or being solved per worker thread
+     */
+    private static final int BOARDS_PER_WORKER = 2;
+
+    /**
+     * Dictionary shared by every search
+     */
+    private final Dictionary dictionary;
+
+    /**
+     * Number of worker threads
+     */
+    private final int workers;
+
+    /**
+     * Directory the results files are written to, or null to write them next to the boards
+     */
+    private final File outputDirectory;
+
+    /**
+     * Where every board's results are written, or null to write a file per board
+     */
+    private final PrintWriter combined;
+
+    /**
+     * Whether words are written to the results files as they are found
+     */
+    private final boolean streaming;
+
+    /**
+     * Words found on recently solved boards, or null to solve every board
+     */
+    private final ResultCache cache;
+
+    /**
+     * Narrows the dictionary down to each board's words, or null to search every board with all of it
+     */
+    private final BoardFilter filter;
+
+    /**
+     * Creates a batch solver
+     * @param dictionary Dictionary shared by every search, which must not change while solving
+     * @param workers Number of worker threads
+     * @param outputDirectory Directory the results files are written to, or null to write them
+     *                        next to the boards
+     * @param combined Where every board's results are written, or null to write a file per board
+     * @param streaming Whether words are written to the results files as they are found, which
+     *                  needs a file per board
+     */
+    public BatchSolver(Dictionary dictionary, int workers, File outputDirectory, PrintWriter combined,
+                       boolean streaming) {
+        this(dictionary, workers, outputDirectory, combined, streaming, null);
+    }
+
+    /**
+     * Creates a batch solver that looks boards up in a cache before solving them
+     * @param dictionary Dictionary shared by every search, which must not change while solving
+     * @param workers Number of worker threads
+     * @param outputDirectory Directory the results files are written to, or null to write them
+     *                        next to the boards
+     * @param combined Where every board's results are written, or null to write a file per board
+     * @param streaming Whether words are written to the results files as they are found, which
+     *                  needs a file per board and is not done for boards found in the cache
+     * @param cache Words found on recently solved boards, or null to solve every board
+     */
+    public BatchSolver(Dictionary dictionary, int workers, File outputDirectory, PrintWriter combined,
+                       boolean streaming, ResultCache cache) {
+        this(dictionary, workers, outputDirectory, combined, streaming, cache, false);
+    }
+
+    /**
+     * Creates a batch solver that looks boards up in a cache before solving
+     * them, and may search each board against only the words that could be on it
+     * @param dictionary Dictionary shared by every search, which must not change while solving
+     * @param workers Number of worker threads
+     * @param outputDirectory Directory the results files are written to, or null to write them
+     *                        next to the boards
+     * @param combined Where every board's results are written, or null to write a file per board
+     * @param streaming Whether words are written to the results files as they are found, which
+     *                  needs a file per board and is not done for boards found in the cache
+     * @param cache Words found on recently solved boards, or null to solve every board
+     * @param filtered Whether each board not found in the cache is searched against only the
+     *                 words that could be on it
+     */
+    public BatchSolver(Dictionary dictionary, int workers, File outputDirectory, PrintWriter combined,
+                       boolean streaming, ResultCache cache, boolean filtered) {
+        if(workers < 1) {
+            throw new IllegalArgumentException("There must be at least one worker: " + workers);
+        } else if(streaming && combined != null) {
+            throw new IllegalArgumentException("Streamed results cannot be written to a combined file.");
+        }
+        this.dictionary = dictionary;
+        this.workers = workers;
+        this.outputDirectory = outputDirectory;
+        this.combined = combined;
+        this.streaming = streaming;
+        this.cache = cache;
+        filter = filtered ? new BoardFilter(dictionary) : null;
+    }
+
+    /**
+     * Static entry point
+     * @param args Command line options, see the class description
+     * @throws IOException if the dictionary or the list of boards cannot be read
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String dictionaryFile = "dictionary.txt";
+        String imageFile = null;
+        int workers = Runtime.getRuntime().availableProcessors();
+        File outputDirectory = null;
+        String combinedFile = null;
+        String grids = null;
+        boolean streaming = false;
+        int cachedBoards = 0;
+        boolean filtered = false;
+        for(int i = 0; i < args.length; i++) {
+            switch(args[i]) {
+                case "-d": dictionaryFile = args[++i]; break;
+                case "-i": imageFile = args[++i]; break;
+                case "-p": workers = Integer.parseInt(args[++i]); break;
+                case "-o": outputDirectory = new File(args[++i]); break;
+                case "-c": combinedFile = args[++i]; break;
+                case "-s": streaming = true; break;
+                case "-k": cachedBoards = Integer.parseInt(args[++i]); break;
+                case "-f": filtered = true; break;
+                default:
+                    if(args[i].startsWith("-")) {
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                    }
+                    grids = args[i];
+            }
+        }
+        if(grids == null || (streaming && combinedFile != null)) {
+            System.err.println("Usage: java lab6.BatchSolver [-d dictionary.txt | -i dictionary.img] [-p workers]"
+                    + " [-o output directory | -c combined file] [-s] [-k cached boards] [-f]"
+                    + " <grid directory or manifest>");
+            System.exit(1);
+        }
+
+        long start = System.nanoTime();
+        Dictionary dictionary;
+        if(imageFile != null) {
+            dictionary = Dictionary.openImage(imageFile);
+        } else {
+            dictionary = new Dictionary(new Trie());
+            dictionary.load(dictionaryFile);
+        }
+        System.out.println(String.format("Loaded %,d words in %.3f s", dictionary.size(),
+                (System.nanoTime() - start) / 1e9));
+
+        List<File> boards = listBoards(new File(grids));
+        if(outputDirectory != null && !outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            throw new IOException("Could not create the output directory " + outputDirectory + ".");
+        }
+        PrintWriter combined = combinedFile == null ? null : new PrintWriter(combinedFile);
+        try {
+            ResultCache cache = cachedBoards > 0 ? new ResultCache(cachedBoards, 1) : null;
+            new BatchSolver(dictionary, workers, outputDirectory, combined, streaming, cache, filtered)
+                    .solve(boards);
+            if(cache != null) {
+                System.out.println("Cache: " + cache);
+            }
+        } finally {
+            if(combined != null) {
+                combined.close();
+            }
+        }
+    }
+
+    /**
+     * Lists the board files in a directory or manifest
+     * @param source Directory of .txt board files, or manifest listing one board file per line
+     * @return The board files, sorted by name for a directory and in manifest order otherwise
+     * @throws IOException if the directory or manifest cannot be read
+     */
+    public static List<File> listBoards(File source) throws IOException {
+        List<File> boards = new ArrayList<>();
+        if(source.isDirectory()) {
+            File[] files = source.listFiles();
+            if(files == null) {
+                throw new IOException("Could not list the directory " + source + ".");
+            }
+            Arrays.sort(files);
+            for(File file : files) {
+                if(file.isFile() && file.getName().endsWith(".txt") && !file.getName().endsWith(".results.txt")) {
+                    boards.add(file);
+                }
+            }
+        } else {
+            File directory = source.getAbsoluteFile().getParentFile();
+            for(String line : Files.readAllLines(source.toPath())) {
+                line = line.trim();
+                if(!line.isEmpty() && !line.startsWith("#")) {
+                    File board = new File(line);
+                    boards.add(board.isAbsolute() ? board : new File(directory, line));
+                }
+            }
+        }
+        return boards;
+    }
+
+    /**
+     * Solves every board and writes out the results, in the order the boards
+     * are given. A board that cannot be read is reported and skipped.
+     * @param boards Board files to solve
+     * @return Number of boards solved
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public int solve(List<File> boards) throws InterruptedException {
+        // Lazily built dictionaries finish building before the workers share them
+        dictionary.prepare();
+        long start = System.nanoTime();
+        int solved = 0;
+        long words = 0;
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            Deque<Future<Solution>> inFlight = new ArrayDeque<>();
+            Deque<File> inFlightBoards = new ArrayDeque<>();
+            for(int i = 0; i < boards.size() || !inFlight.isEmpty(); ) {
+                if(i < boards.size() && inFlight.size() < workers * BOARDS_PER_WORKER) {
+                    inFlight.add(pool.submit(solver(boards.get(i))));
+                    inFlightBoards.add(boards.get(i));
+                    i++;
+                } else {
+                    File board = inFlightBoards.remove();
+                    try {
+                        Solution solution = inFlight.remove().get();
+                        if(solution.words != null) {
+                            write(board, solution.words);
+                        }
+                        solved++;
+                        words += solution.count;
+                    } catch(ExecutionException e) {
+                        System.err.println("Could not solve " + board + ": " + e.getCause());
+                    }
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("Solved %,d of %,d boards (%,d words) in %.3f s with %d workers: "
+                + "%,.1f boards/s", solved, boards.size(), words, seconds, workers, solved / seconds));
+        return solved;
+    }
+
+    /**
+     * Creates the task that solves one board, unless the cache holds it. When
+     * streaming, the task also writes the results file of a board it solves,
+     * and keeps a copy of the words for the cache if there is one.
+     * @param board Board file to solve
+     * @return Task returning the words found on the board
+     */
+    private Callable<Solution> solver(final File board) {
+        return new Callable<Solution>() {
+            @Override
+            public Solution call() throws IOException {
+                GameBoard gameBoard = GameBoard.load(board);
+                if(cache != null) {
+                    Collection<String> words = cache.get(gameBoard.getPieces(), gameBoard.getRows(),
+                            gameBoard.getCols(), dictionary, Topology.EIGHT_WAY);
+                    if(words != null) {
+                        return new Solution(words, words.size());
+                    }
+                }
+                Dictionary words = filter == null ? dictionary : filter.filter(gameBoard.getPieces(),
+                        gameBoard.getRows(), gameBoard.getCols(), Topology.EIGHT_WAY, 1);
+                WordFinder finder = new WordFinder(gameBoard.getPieces(), words,
+                        gameBoard.getRows(), gameBoard.getCols());
+                if(streaming) {
+                    final List<String> found = cache != null ? new ArrayList<String>() : null;
+                    PrintWriter printStream = new PrintWriter(resultsFile(board));
+                    try(final StreamingResultWriter writer = new StreamingResultWriter(printStream)) {
+                        finder.startSearching(found == null ? writer : new WordSink() {
+                            @Override
+                            public boolean accept(String word) {
+                                found.add(word);
+                                return writer.accept(word);
+                            }
+                        });
+                        if(found != null) {
+                            cache.put(gameBoard.getPieces(), gameBoard.getRows(), gameBoard.getCols(), dictionary,
+                                    Topology.EIGHT_WAY, found);
+                        }
+                        return new Solution(null, writer.getCount());
+                    }
+                }
+                finder.startSearching(1);
+                if(cache != null) {
+                    cache.put(gameBoard.getPieces(), gameBoard.getRows(), gameBoard.getCols(), dictionary,
+                            Topology.EIGHT_WAY, finder.getResults());
+                }
+                return new Solution(finder.getResults(), finder.getResults().size());
+            }
+        };
+    }
+
+    /**
+     * Writes the results of one board to the combined file or its own results file
+     * @param board Board file that was solved
+     * @param results Words found on the board
+     */
+    private void write(File board, Collection<String> results) {
+        ResultOutputEvent event = new ResultOutputEvent();
+        event.begin();
+        if(combined != null) {
+            combined.println("Results for " + board.getPath() + ":");
+            WordSearchApp.printResults(results, combined);
+            event.destination = board.getPath();
+        } else {
+            try(PrintWriter printStream = new PrintWriter(resultsFile(board))) {
+                WordSearchApp.printResults(results, printStream);
+                event.destination = resultsFile(board).getPath();
+            } catch(FileNotFoundException e) {
+                System.err.println("Could not write the results of " + board + ": " + e.getMessage());
+                return;
+            }
+        }
+        event.words = results.size();
+        event.commit();
+    }
+
+    /**
+     * Returns the file a board's results are written to when there is a file per board
+     * @param board Board file that was solved
+     * @return name.results.txt in the output directory, or next to the board if there is none
+     */
+    private File resultsFile(File board) {
+        String name = board.getName();
+        name = (name.endsWith(".txt") ? name.substring(0, name.length() - 4) : name) + ".results.txt";
+        File directory = outputDirectory != null ? outputDirectory : board.getAbsoluteFile().getParentFile();
+        return new File(directory, name);
+    }
+
+    /**
+     * What solving one board produced
+     */
+    private static class Solution {
+        /**
+         * Words found on the board, or null if they were already written out
+         */
+        private final Collection<String> words;
+
+        /**
+         * Number of words found on the board
+         */
+        private final int count;
+
+        /**
+         * Creates a solution
+         * @param words Words found on the board, or null if they were already written out
+         * @param count Number of words found on the board
+         */
+        private Solution(Collection<String> words, int count) {
+            this.words = words;
+            this.count = count;
+        }
+    }
+}
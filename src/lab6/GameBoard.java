@@ -0,0 +1,124 @@
+package lab6;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * A rectangular grid of letters to be searched for words. The game pieces
+ * are stored row by row, so the piece at (row, col) is at index
+ * row * cols + col.
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public class GameBoard {
+    /**
+     * Letters in a random board, weighted roughly by how often they appear
+     * in English words
+     */
+    private static final String RANDOM_LETTERS =
+            "EEEEEEEEEEEEAAAAAAAAARRRRRRIIIIIIIIOOOOOOOOTTTTTTTTNNNNNNSSSSSSLLLLUUUUDDDDGGGBBCCMMPPFFHHVVWWYYKJXQZ";
+
+    /**
+     * Game pieces that compose the game board
+     */
+    private final List<GamePiece<Character>> pieces;
+
+    /**
+     * Number of rows on the game board
+     */
+    private final int rows;
+
+    /**
+     * Number of columns on the game board
+     */
+    private final int cols;
+
+    /**
+     * Creates a game board from its game pieces
+     * @param pieces Game pieces, row by row
+     * @param rows Number of rows on the game board
+     * @param cols Number of columns on the game board
+     */
+    public GameBoard(List<GamePiece<Character>> pieces, int rows, int cols) {
+        if(pieces.size() != rows * cols) {
+            throw new IllegalArgumentException("Expected " + rows * cols + " game pieces but got "
+                    + pieces.size() + ".");
+        }
+        this.pieces = Collections.unmodifiableList(pieces);
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /**
+     * This method will parse through the input file and translate the text
+     * file into a game board, one row per line
+     * @param boardFile File containing the game board
+     * @return The game board
+     * @throws IOException if the file cannot be read or its rows differ in length
+     */
+    public static GameBoard load(File boardFile) throws IOException {
+        List<GamePiece<Character>> pieces = new ArrayList<>();
+        int rows = 0;
+        int cols = -1;
+        try (Scanner inputScanner = new Scanner(boardFile)) {
+            inputScanner.useDelimiter(System.getProperty("line.separator"));
+            while(inputScanner.hasNextLine()) {
+                char[] currLine = inputScanner.nextLine().toCharArray();
+                if(cols!=-1 && cols!=currLine.length) {
+                    throw new IOException("Not all rows have the same number of columns.");
+                }
+                cols = currLine.length;
+                for(Character letter : currLine) {
+                    pieces.add(new GamePiece<>(letter, false));
+                }
+                rows++;
+            }
+        }
+        return new GameBoard(pieces, rows, Math.max(cols, 0));
+    }
+
+    /**
+     * Creates a game board of random upper case letters
+     * @param rows Number of rows on the game board
+     * @param cols Number of columns on the game board
+     * @param seed Seed for the random letters, so the same board can be created again
+     * @return The game board
+     */
+    public static GameBoard random(int rows, int cols, long seed) {
+        Random random = new Random(seed);
+        List<GamePiece<Character>> pieces = new ArrayList<>(rows * cols);
+        for(int i = 0; i < rows * cols; ++i) {
+            pieces.add(new GamePiece<>(RANDOM_LETTERS.charAt(random.nextInt(RANDOM_LETTERS.length())), false));
+        }
+        return new GameBoard(pieces, rows, cols);
+    }
+
+    /**
+     * Returns the game pieces that compose the game board
+     * @return Unmodifiable list of game pieces, row by row
+     */
+    public List<GamePiece<Character>> getPieces() {
+        return pieces;
+    }
+
+    /**
+     * Returns the number of rows on the game board
+     * @return Number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the number of columns on the game board
+     * @return Number of columns
+     */
+    public int getCols() {
+        return cols;
+    }
+}
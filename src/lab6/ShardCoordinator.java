@@ -0,0 +1,499 @@
+package lab6;
+
+import lab6.guswilerib.Topology;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searches a game board with a number of ShardWorker processes, each standing
+ * in for a machine of its own. The start cells of the board are split into
+ * shards, a few per worker so that a worker that finishes early can take on
+ * another, and the workers' sorted results are merged. Workers keep the
+ * dictionary loaded between searches, so a coordinator should be kept for as
+ * long as there are boards to search.<br />
+ * <br />
+ * A worker that dies, or does not answer within the shard timeout, is killed
+ * and replaced by a new one and its shard is searched again, up to
+ * {@link #MAX_ATTEMPTS} times per shard. A new worker must load the
+ * dictionary within the shard timeout too, and one that does not is killed
+ * and counts as a failed attempt.<br />
+ * <br />
+ * Usage: <tt>java lab6.ShardCoordinator [-d dictionary.txt | -i dictionary.img]
+ * [-w workers] [-t shard timeout ms] [-s] [-o results.txt] &lt;grid&gt;</tt><br />
+ * With -s the board is searched with 1, 2, ... up to the given number of
+ * workers and the time taken by each is printed, to show how the search
+ * scales, instead of writing the results.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public class ShardCoordinator implements AutoCloseable {
+    /**
+     * Number of shards the start cells are split into per worker
+     */
+    private static final int SHARDS_PER_WORKER = 4;
+
+    /**
+     * Number of times a shard is tried before the search is given up
+     */
+    public static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * Milliseconds a worker is given to answer for a shard unless told otherwise
+     */
+    public static final long DEFAULT_SHARD_TIMEOUT_MILLIS = 60000;
+
+    /**
+     * Options passed to every worker process
+     */
+    private final List<String> workerCommand;
+
+    /**
+     * The worker processes, one per thread of the pool
+     */
+    private final Worker[] workers;
+
+    /**
+     * Threads talking to the workers, one per worker
+     */
+    private final ExecutorService pool;
+
+    /**
+     * Thread killing workers that take longer than the shard timeout
+     */
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+
+    /**
+     * Milliseconds a worker is given to answer for a shard
+     */
+    private final long shardTimeoutMillis;
+
+    /**
+     * Starts the worker processes and waits for them to load the dictionary
+     * @param workerCount Number of worker processes
+     * @param dictionaryOptions Options telling the workers which dictionary to load,
+     *                          as given to ShardWorker
+     * @throws IOException if a worker cannot be started
+     */
+    public ShardCoordinator(int workerCount, String... dictionaryOptions) throws IOException {
+        this(workerCount, DEFAULT_SHARD_TIMEOUT_MILLIS, dictionaryOptions);
+    }
+
+    /**
+     * Starts the worker processes and waits for them to load the dictionary
+     * @param workerCount Number of worker processes
+     * @param shardTimeoutMillis Milliseconds a worker is given to load the dictionary or to
+     *                           answer for a shard before it is killed
+     * @param dictionaryOptions Options telling the workers which dictionary to load,
+     *                          as given to ShardWorker
+     * @throws IOException if a worker cannot be started or is not ready in time
+     */
+    public ShardCoordinator(int workerCount, long shardTimeoutMillis, String... dictionaryOptions)
+            throws IOException {
+        if(workerCount < 1) {
+            throw new IllegalArgumentException("There must be at least one worker: " + workerCount);
+        } else if(shardTimeoutMillis < 1) {
+            throw new IllegalArgumentException("The shard timeout must be positive: " + shardTimeoutMillis);
+        }
+        this.shardTimeoutMillis = shardTimeoutMillis;
+        workerCommand = new ArrayList<>();
+        workerCommand.add(new File(System.getProperty("java.home"), "bin" + File.separator + "java").getPath());
+        workerCommand.add("-cp");
+        workerCommand.add(System.getProperty("java.class.path"));
+        workerCommand.add(ShardWorker.class.getName());
+        for(String option : dictionaryOptions) {
+            workerCommand.add(option);
+        }
+        workers = new Worker[workerCount];
+        pool = Executors.newFixedThreadPool(workerCount);
+        try {
+            for(int i = 0; i < workerCount; i++) {
+                workers[i] = new Worker();
+            }
+            for(Worker worker : workers) {
+                worker.awaitReady();
+            }
+        } catch(IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Static entry point
+     * @param args Command line options, see the class description
+     * @throws IOException if the board cannot be read or the workers fail
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        List<String> dictionaryOptions = new ArrayList<>();
+        int workerCount = Runtime.getRuntime().availableProcessors();
+        long shardTimeoutMillis = DEFAULT_SHARD_TIMEOUT_MILLIS;
+        boolean scaling = false;
+        String resultsFile = "results.txt";
+        String grid = null;
+        for(int i = 0; i < args.length; i++) {
+            switch(args[i]) {
+                case "-d": case "-i":
+                    dictionaryOptions.add(args[i]);
+                    dictionaryOptions.add(args[++i]);
+                    break;
+                case "-w": workerCount = Integer.parseInt(args[++i]); break;
+                case "-t": shardTimeoutMillis = Long.parseLong(args[++i]); break;
+                case "-s": scaling = true; break;
+                case "-o": resultsFile = args[++i]; break;
+                default:
+                    if(args[i].startsWith("-")) {
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                    }
+                    grid = args[i];
+            }
+        }
+        if(grid == null) {
+            System.err.println("Usage: java lab6.ShardCoordinator [-d dictionary.txt | -i dictionary.img]"
+                    + " [-w workers] [-t shard timeout ms] [-s] [-o results.txt] <grid>");
+            System.exit(1);
+        }
+
+        GameBoard board = GameBoard.load(new File(grid));
+        String[] options = dictionaryOptions.toArray(new String[0]);
+        if(scaling) {
+            System.out.println("workers,seconds,speedup");
+            double baseline = 0;
+            for(int count = 1; count <= workerCount; count++) {
+                try(ShardCoordinator coordinator = new ShardCoordinator(count, shardTimeoutMillis, options)) {
+                    // The first search warms up the workers' JIT
+                    coordinator.search(board, Topology.EIGHT_WAY);
+                    long start = System.nanoTime();
+                    coordinator.search(board, Topology.EIGHT_WAY);
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    if(count == 1) {
+                        baseline = seconds;
+                    }
+                    System.out.println(String.format("%d,%.3f,%.2f", count, seconds, baseline / seconds));
+                }
+            }
+        } else {
+            try(ShardCoordinator coordinator = new ShardCoordinator(workerCount, shardTimeoutMillis, options);
+                PrintWriter printStream = new PrintWriter(resultsFile)) {
+                WordSearchApp.printResults(coordinator.search(board, Topology.EIGHT_WAY), printStream);
+            }
+        }
+    }
+
+    /**
+     * Searches a game board, splitting its start cells between the workers
+     * @param board The game board to be searched
+     * @param topology Moves allowed between the game pieces of a word, which must
+     *                 be one the workers can find with Topology.forName
+     * @return The words found on the board, sorted
+     * @throws IOException if a shard fails on every attempt
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public Collection<String> search(GameBoard board, Topology topology) throws IOException, InterruptedException {
+        // Fails here rather than in every worker if they cannot find the topology
+        Topology.forName(topology.toString());
+        final List<String> job = describe(board, topology);
+        final ConcurrentLinkedQueue<Shard> shards = new ConcurrentLinkedQueue<>();
+        int cells = board.getRows() * board.getCols();
+        int shardCount = Math.max(1, Math.min(cells, workers.length * SHARDS_PER_WORKER));
+        for(int i = 0; i < shardCount; i++) {
+            shards.add(new Shard((int) ((long) cells * i / shardCount), (int) ((long) cells * (i + 1) / shardCount)));
+        }
+
+        List<Future<Collection<String>>> futures = new ArrayList<>();
+        for(int i = 0; i < workers.length; i++) {
+            final int index = i;
+            futures.add(pool.submit(new Callable<Collection<String>>() {
+                @Override
+                public Collection<String> call() throws IOException {
+                    return searchShards(index, job, shards);
+                }
+            }));
+        }
+        Collection<String> found = new TreeSet<>();
+        try {
+            for(Future<Collection<String>> future : futures) {
+                found.addAll(future.get());
+            }
+        } catch(ExecutionException e) {
+            if(e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException("A shard could not be searched.", e.getCause());
+        }
+        return found;
+    }
+
+    /**
+     * Hands shards to one worker until there are none left. A shard whose
+     * worker dies or runs past the shard timeout goes back on the queue for
+     * any worker to take, and the worker is replaced before it takes its next
+     * shard. A replacement that cannot be started counts as a failed attempt
+     * at that shard.
+     * @param index Index of the worker
+     * @param job Lines describing the job, as written by describe
+     * @param shards Shards not yet searched
+     * @return The words found in the shards this worker searched
+     * @throws IOException if a shard fails on every attempt
+     */
+    private Collection<String> searchShards(int index, List<String> job, ConcurrentLinkedQueue<Shard> shards)
+            throws IOException {
+        Collection<String> found = new TreeSet<>();
+        Shard shard;
+        while((shard = shards.poll()) != null) {
+            try {
+                if(workers[index] == null) {
+                    workers[index] = new Worker();
+                    workers[index].awaitReady();
+                }
+                workers[index].search(shard, job, found);
+            } catch(IOException e) {
+                if(workers[index] != null) {
+                    workers[index].destroy();
+                    workers[index] = null;
+                }
+                if(++shard.attempts >= MAX_ATTEMPTS) {
+                    throw new IOException("Giving up on start cells " + shard.from + " to " + shard.to
+                            + " after " + shard.attempts + " attempts.", e);
+                }
+                System.err.println("Worker " + index + " failed (" + e.getMessage() + "), restarting it.");
+                shards.add(shard);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Writes out the lines of a job that are the same for every shard
+     * @param board The game board to be searched
+     * @param topology Moves allowed between the game pieces of a word
+     * @return The SEARCH line without the start cells, the topology name and one line per row
+     */
+    private static List<String> describe(GameBoard board, Topology topology) {
+        List<String> lines = new ArrayList<>(board.getRows() + 2);
+        lines.add(ShardWorker.SEARCH + " " + board.getRows() + " " + board.getCols());
+        lines.add(topology.toString());
+        char[] row = new char[board.getCols()];
+        for(int r = 0; r < board.getRows(); r++) {
+            for(int c = 0; c < row.length; c++) {
+                row[c] = board.getPieces().get(r * row.length + c).getElement();
+            }
+            lines.add(new String(row));
+        }
+        return lines;
+    }
+
+    /**
+     * Asks the workers to exit and stops the threads talking to them
+     */
+    @Override
+    public void close() {
+        for(Worker worker : workers) {
+            if(worker != null) {
+                worker.quit();
+            }
+        }
+        pool.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    /**
+     * A range of start cells and the number of times it has failed
+     */
+    private static final class Shard {
+        /**
+         * Index of the first start cell
+         */
+        private final int from;
+
+        /**
+         * Index one past the last start cell
+         */
+        private final int to;
+
+        /**
+         * Number of failed attempts so far
+         */
+        private int attempts;
+
+        /**
+         * Creates a shard
+         * @param from Index of the first start cell
+         * @param to Index one past the last start cell
+         */
+        private Shard(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * A worker process and the pipes to it
+     */
+    private final class Worker {
+        /**
+         * The worker process
+         */
+        private final Process process;
+
+        /**
+         * Jobs sent to the worker
+         */
+        private final PrintWriter out;
+
+        /**
+         * Answers from the worker
+         */
+        private final BufferedReader in;
+
+        /**
+         * Starts a worker process
+         * @throws IOException if the process cannot be started
+         */
+        private Worker() throws IOException {
+            process = new ProcessBuilder(workerCommand).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(process.getOutputStream(),
+                    StandardCharsets.UTF_8)));
+            in = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Waits for the worker to load the dictionary. If it is not ready
+         * within the shard timeout it is killed, which ends the wait.
+         * @throws IOException if the worker exits or runs past the shard timeout first
+         */
+        private void awaitReady() throws IOException {
+            ScheduledFuture<?> deadline = killAfterTimeout();
+            String line;
+            IOException failure = null;
+            try {
+                line = in.readLine();
+            } catch(IOException e) {
+                // Killing the worker may close the stream in the middle of a read
+                line = null;
+                failure = e;
+            }
+            if(!deadline.cancel(false)) {
+                throw new IOException("Worker was not ready within " + shardTimeoutMillis + " ms.", failure);
+            } else if(failure != null || !ShardWorker.READY.equals(line)) {
+                destroy();
+                throw failure != null ? failure : new IOException("Worker did not start: " + line);
+            }
+        }
+
+        /**
+         * Schedules the worker to be killed once the shard timeout has passed
+         * @return The kill, to be cancelled once the worker has answered
+         */
+        private ScheduledFuture<?> killAfterTimeout() {
+            return timer.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    destroy();
+                }
+            }, shardTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Has the worker search a shard. If the whole answer has not arrived
+         * within the shard timeout the worker is killed, which ends the wait
+         * for its next line.
+         * @param shard Start cells to search
+         * @param job Lines describing the job, as written by describe
+         * @param found Where the words found are added, only once the whole answer has arrived
+         * @throws IOException if the worker dies, runs past the shard timeout or its answer is cut short
+         */
+        private void search(Shard shard, List<String> job, Collection<String> found) throws IOException {
+            out.println(job.get(0) + " " + shard.from + " " + shard.to);
+            for(String line : job.subList(1, job.size())) {
+                out.println(line);
+            }
+            out.flush();
+            if(out.checkError()) {
+                throw new IOException("Could not send the job.");
+            }
+            ScheduledFuture<?> deadline = killAfterTimeout();
+            List<String> words = new ArrayList<>();
+            String line;
+            IOException failure = null;
+            try {
+                while((line = in.readLine()) != null && !line.startsWith(ShardWorker.END + " ")) {
+                    words.add(line);
+                }
+            } catch(IOException e) {
+                // Killing the worker may close the stream in the middle of a read
+                line = null;
+                failure = e;
+            }
+            if(!deadline.cancel(false)) {
+                // Even if the answer arrived just in time the worker is being killed
+                throw new IOException("Worker did not answer within " + shardTimeoutMillis + " ms.", failure);
+            } else if(failure != null) {
+                throw failure;
+            } else if(line == null) {
+                throw new IOException("Worker exited with " + exitValue() + ".");
+            } else if(Integer.parseInt(line.substring(ShardWorker.END.length() + 1)) != words.size()) {
+                throw new IOException("Worker answered with " + words.size() + " words but counted " + line + ".");
+            }
+            found.addAll(words);
+        }
+
+        /**
+         * Waits for the worker to exit and returns its exit value
+         * @return The exit value, or a note that it is not known
+         */
+        private String exitValue() {
+            try {
+                return String.valueOf(process.waitFor());
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return "an unknown status";
+            }
+        }
+
+        /**
+         * Asks the worker to exit, and kills it if it does not
+         */
+        private void quit() {
+            out.println(ShardWorker.QUIT);
+            out.flush();
+            out.close();
+            try {
+                if(!process.waitFor(1, TimeUnit.SECONDS)) {
+                    destroy();
+                }
+            } catch(InterruptedException e) {
+                destroy();
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Kills the worker
+         */
+        private void destroy() {
+            process.destroyForcibly();
+        }
+    }
+}
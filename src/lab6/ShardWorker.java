@@ -0,0 +1,120 @@
+package lab6;
+
+import lab6.guswilerib.Dictionary;
+import lab6.guswilerib.Topology;
+import lab6.guswilerib.Trie;
+import lab6.guswilerib.WordFinder;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Worker process for a ShardCoordinator. It loads the dictionary once and then
+ * searches shards of game boards for as long as the coordinator keeps sending
+ * them, so only the first shard pays for loading the dictionary.<br />
+ * <br />
+ * Jobs are read from standard input and answered on standard output, one
+ * field per line:
+ * <pre>
+ * READY                                  (sent once the dictionary is loaded)
+ * SEARCH rows cols fromCell toCell       (from the coordinator)
+ * topology name
+ * one line per row of the board
+ * one word per line                      (the answer)
+ * END number of words
+ * QUIT                                   (from the coordinator, when done)
+ * </pre>
+ * Problems are reported on standard error, which the coordinator passes on.
+ * <br />
+ * Usage: <tt>java lab6.ShardWorker [-d dictionary.txt | -i dictionary.img]</tt>
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public class ShardWorker {
+    /**
+     * Sent once the worker is ready for jobs
+     */
+    static final String READY = "READY";
+
+    /**
+     * Starts a job
+     */
+    static final String SEARCH = "SEARCH";
+
+    /**
+     * Ends the answer to a job
+     */
+    static final String END = "END";
+
+    /**
+     * Asks the worker to exit
+     */
+    static final String QUIT = "QUIT";
+
+    /**
+     * Static entry point
+     * @param args Command line options, see the class description
+     * @throws IOException if the dictionary cannot be read or the coordinator goes away
+     */
+    public static void main(String[] args) throws IOException {
+        String dictionaryFile = "dictionary.txt";
+        String imageFile = null;
+        for(int i = 0; i < args.length; i++) {
+            switch(args[i]) {
+                case "-d": dictionaryFile = args[++i]; break;
+                case "-i": imageFile = args[++i]; break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        Dictionary dictionary;
+        if(imageFile != null) {
+            dictionary = Dictionary.openImage(imageFile);
+        } else {
+            dictionary = new Dictionary(new Trie());
+            dictionary.load(dictionaryFile);
+        }
+
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out,
+                StandardCharsets.UTF_8)));
+        out.println(READY);
+        out.flush();
+        String line;
+        while((line = in.readLine()) != null && !line.equals(QUIT)) {
+            String[] job = line.split(" ");
+            if(job.length != 5 || !job[0].equals(SEARCH)) {
+                throw new IOException("Expected a job but got: " + line);
+            }
+            int rows = Integer.parseInt(job[1]);
+            int cols = Integer.parseInt(job[2]);
+            Topology topology = Topology.forName(in.readLine());
+            List<GamePiece<Character>> pieces = new ArrayList<>(rows * cols);
+            for(int row = 0; row < rows; row++) {
+                String letters = in.readLine();
+                if(letters == null || letters.length() != cols) {
+                    throw new IOException("Row " + row + " of the board does not have " + cols + " columns.");
+                }
+                for(int col = 0; col < cols; col++) {
+                    pieces.add(new GamePiece<>(letters.charAt(col), false));
+                }
+            }
+            WordFinder finder = new WordFinder(pieces, dictionary, rows, cols, topology);
+            finder.startSearching(1, Integer.parseInt(job[3]), Integer.parseInt(job[4]));
+            Collection<String> results = finder.getResults();
+            for(String word : results) {
+                out.println(word);
+            }
+            out.println(END + " " + results.size());
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package lab6;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import lab6.guswilerib.Dictionary;
+import lab6.guswilerib.ResultCache;
+import lab6.guswilerib.Topology;
+import lab6.guswilerib.Trie;
+import lab6.guswilerib.WordFinder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-running solver that answers search requests over HTTP on the local
+ * machine. The dictionary is loaded once when the server starts and a few
+ * boards are searched to warm up the JIT, so requests pay for neither.<br />
+ * <br />
+ * Each request is handled on a virtual thread when the JVM has them (Java 21
+ * and later) and on a pooled thread otherwise. At most a fixed number of
+ * searches run at once; a few more requests may wait for their turn, and any
+ * beyond that are turned away at once with 503 so that an overloaded server
+ * stays responsive. A search that runs past the request timeout is cancelled
+ * and answered with 504.<br />
+ * <br />
+ * Requests:
+ * <ul>
+ *     <li><tt>POST /solve[?topology=8-way]</tt> with the board in the body,
+ *     one row per line, answered with the words found, one per line</li>
+ *     <li><tt>GET /stats</tt>, answered with the request counters</li>
+ * </ul>
+ * Usage: <tt>java lab6.SolverServer [-d dictionary.txt | -i dictionary.img]
+ * [-port 8852] [-c concurrent searches] [-q queued requests]
+ * [-t timeout ms] [-k cached boards]</tt>
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public class SolverServer implements AutoCloseable {
+    /**
+     * Port the server listens on unless another is given
+     */
+    public static final int DEFAULT_PORT = 8852;
+
+    /**
+     * Number of random boards searched at startup to warm up the JIT
+     */
+    private static final int WARMUP_BOARDS = 20;
+
+    /**
+     * Dictionary every board is searched with
+     */
+    private final Dictionary dictionary;
+
+    /**
+     * Words found on recent boards, or null to search every board
+     */
+    private final ResultCache cache;
+
+    /**
+     * Permits for the searches allowed to run at once
+     */
+    private final Semaphore searches;
+
+    /**
+     * Most requests admitted at once, running or waiting for a permit
+     */
+    private final int admissionLimit;
+
+    /**
+     * Milliseconds a request may take before it is answered with 504
+     */
+    private final long timeoutMillis;
+
+    /**
+     * The HTTP server
+     */
+    private final HttpServer server;
+
+    /**
+     * Threads handling requests
+     */
+    private final ExecutorService handlers;
+
+    /**
+     * Thread cancelling searches that run past their timeout
+     */
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+
+    /**
+     * Requests admitted and not yet answered
+     */
+    private final AtomicInteger admitted = new AtomicInteger();
+
+    /**
+     * Requests answered with the words found
+     */
+    private final AtomicLong solved = new AtomicLong();
+
+    /**
+     * Requests turned away because too many were admitted
+     */
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Requests that ran past their timeout
+     */
+    private final AtomicLong timedOut = new AtomicLong();
+
+    /**
+     * Requests that could not be understood
+     */
+    private final AtomicLong badRequests = new AtomicLong();
+
+    /**
+     * Starts a server
+     * @param dictionary Dictionary every board is searched with, which must not change while serving
+     * @param port Port to listen on, or 0 for any free port
+     * @param concurrency Number of searches allowed to run at once
+     * @param queued Number of requests allowed to wait for a search to finish
+     * @param timeoutMillis Milliseconds a request may take before it is answered with 504
+     * @param cache Words found on recent boards, or null to search every board. A search through
+     *              the cache is not cancelled at the timeout, though a request still times out
+     *              while waiting for its turn.
+     * @throws IOException if the server cannot listen on the port
+     */
+    public SolverServer(Dictionary dictionary, int port, int concurrency, int queued, long timeoutMillis,
+                        ResultCache cache) throws IOException {
+        if(concurrency < 1) {
+            throw new IllegalArgumentException("At least one search must be allowed to run: " + concurrency);
+        } else if(queued < 0 || timeoutMillis < 1) {
+            throw new IllegalArgumentException("The queue and timeout cannot be negative or zero: "
+                    + queued + ", " + timeoutMillis);
+        }
+        this.dictionary = dictionary;
+        this.cache = cache;
+        this.timeoutMillis = timeoutMillis;
+        searches = new Semaphore(concurrency);
+        admissionLimit = concurrency + queued;
+        handlers = newHandlerExecutor();
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.setExecutor(handlers);
+        server.createContext("/solve", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                solve(exchange);
+            }
+        });
+        server.createContext("/stats", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                reply(exchange, 200, getStats());
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * Static entry point
+     * @param args Command line options, see the class description
+     * @throws IOException if the dictionary cannot be read or the server cannot start
+     */
+    public static void main(String[] args) throws IOException {
+        String dictionaryFile = "dictionary.txt";
+        String imageFile = null;
+        int port = DEFAULT_PORT;
+        int concurrency = Runtime.getRuntime().availableProcessors();
+        int queued = -1;
+        long timeoutMillis = 1000;
+        int cachedBoards = 0;
+        for(int i = 0; i < args.length; i++) {
+            switch(args[i]) {
+                case "-d": dictionaryFile = args[++i]; break;
+                case "-i": imageFile = args[++i]; break;
+                case "-port": port = Integer.parseInt(args[++i]); break;
+                case "-c": concurrency = Integer.parseInt(args[++i]); break;
+                case "-q": queued = Integer.parseInt(args[++i]); break;
+                case "-t": timeoutMillis = Long.parseLong(args[++i]); break;
+                case "-k": cachedBoards = Integer.parseInt(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if(queued < 0) {
+            queued = 4 * concurrency;
+        }
+
+        long start = System.nanoTime();
+        Dictionary dictionary;
+        if(imageFile != null) {
+            dictionary = Dictionary.openImage(imageFile);
+        } else {
+            dictionary = new Dictionary(new Trie());
+            dictionary.load(dictionaryFile);
+        }
+        warmUp(dictionary);
+        SolverServer server = new SolverServer(dictionary, port, concurrency, queued, timeoutMillis,
+                cachedBoards > 0 ? new ResultCache(cachedBoards, 1) : null);
+        System.out.println(String.format("Serving %,d words on http://localhost:%d/solve after %.3f s"
+                        + " (%d concurrent searches, %d queued, %d ms timeout)", dictionary.size(),
+                server.getPort(), (System.nanoTime() - start) / 1e9, concurrency, queued, timeoutMillis));
+    }
+
+    /**
+     * Searches a few random boards so the search is compiled before the first request
+     * @param dictionary Dictionary the boards are searched with
+     */
+    private static void warmUp(Dictionary dictionary) {
+        for(int i = 0; i < WARMUP_BOARDS; i++) {
+            GameBoard board = GameBoard.random(16, 16, i);
+            new WordFinder(board.getPieces(), dictionary, board.getRows(), board.getCols()).startSearching(1);
+        }
+    }
+
+    /**
+     * Creates the executor that handles requests: one virtual thread per
+     * request when the JVM has virtual threads, and a growing pool of
+     * platform threads otherwise. Virtual threads are looked up by name so
+     * the server still builds and runs on older JVMs.
+     * @return The executor
+     */
+    private static ExecutorService newHandlerExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch(ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Answers a search request
+     * @param exchange The request and its response
+     * @throws IOException if the response cannot be sent
+     */
+    private void solve(HttpExchange exchange) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        if(!exchange.getRequestMethod().equals("POST")) {
+            badRequests.incrementAndGet();
+            reply(exchange, 405, "Send the board with POST.\n");
+            return;
+        }
+        // Every request counted here is uncounted in the finally block, admitted or not
+        try {
+            if(admitted.incrementAndGet() > admissionLimit) {
+                rejected.incrementAndGet();
+                reply(exchange, 503, "Too many requests, try again later.\n");
+                return;
+            }
+            GameBoard board;
+            Topology topology;
+            try {
+                board = parseBoard(exchange.getRequestBody());
+                topology = Topology.forName(queryValue(exchange.getRequestURI(), "topology", "8-way"));
+            } catch(IllegalArgumentException e) {
+                badRequests.incrementAndGet();
+                reply(exchange, 400, e.getMessage() + "\n");
+                return;
+            }
+            Collection<String> words = search(board, topology, deadline);
+            if(words == null) {
+                timedOut.incrementAndGet();
+                reply(exchange, 504, "The search took longer than " + timeoutMillis + " ms.\n");
+                return;
+            }
+            StringBuilder body = new StringBuilder();
+            for(String word : words) {
+                body.append(word).append('\n');
+            }
+            solved.incrementAndGet();
+            reply(exchange, 200, body.toString());
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reply(exchange, 503, "The server is shutting down.\n");
+        } finally {
+            admitted.decrementAndGet();
+        }
+    }
+
+    /**
+     * Searches a board once a permit is free, giving up at the deadline
+     * @param board The game board to be searched
+     * @param topology Moves allowed between the game pieces of a word
+     * @param deadline When the request times out, from System.nanoTime
+     * @return The words found, or null if the deadline passed first
+     * @throws InterruptedException if interrupted while waiting for a permit
+     */
+    private Collection<String> search(GameBoard board, Topology topology, long deadline)
+            throws InterruptedException {
+        if(!searches.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+            return null;
+        }
+        try {
+            if(cache != null) {
+                return cache.search(board.getPieces(), board.getRows(), board.getCols(), dictionary, topology);
+            }
+            final WordFinder finder = new WordFinder(board.getPieces(), dictionary, board.getRows(),
+                    board.getCols(), topology);
+            ScheduledFuture<?> timeout = timer.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    finder.cancel();
+                }
+            }, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            finder.startSearching(1);
+            timeout.cancel(false);
+            return finder.isComplete() ? finder.getResults() : null;
+        } finally {
+            searches.release();
+        }
+    }
+
+    /**
+     * Reads a board sent in a request, one row per line
+     * @param body Body of the request
+     * @return The game board
+     * @throws IOException if the body cannot be read
+     * @throws IllegalArgumentException if the board is empty or its rows differ in length
+     */
+    private static GameBoard parseBoard(InputStream body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for(int read; (read = body.read(buffer)) > 0; ) {
+            bytes.write(buffer, 0, read);
+        }
+        List<GamePiece<Character>> pieces = new ArrayList<>();
+        int rows = 0;
+        int cols = -1;
+        for(String line : new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\r?\n")) {
+            if(line.isEmpty()) {
+                continue;
+            }
+            if(cols != -1 && cols != line.length()) {
+                throw new IllegalArgumentException("Not all rows have the same number of columns.");
+            }
+            cols = line.length();
+            for(int i = 0; i < line.length(); i++) {
+                pieces.add(new GamePiece<>(line.charAt(i), false));
+            }
+            rows++;
+        }
+        if(rows == 0) {
+            throw new IllegalArgumentException("The board is empty.");
+        }
+        return new GameBoard(pieces, rows, cols);
+    }
+
+    /**
+     * Finds a parameter in the query of a request
+     * @param uri The request URI
+     * @param name Name of the parameter
+     * @param fallback Value to use if the parameter is not there
+     * @return The value of the parameter
+     */
+    private static String queryValue(URI uri, String name, String fallback) {
+        String query = uri.getQuery();
+        if(query != null) {
+            for(String parameter : query.split("&")) {
+                if(parameter.startsWith(name + "=")) {
+                    return parameter.substring(name.length() + 1);
+                }
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * Sends a plain text response
+     * @param exchange The request and its response
+     * @param status HTTP status code
+     * @param text Body of the response
+     * @throws IOException if the response cannot be sent
+     */
+    private static void reply(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try(OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Returns the request counters, one per line
+     * @return The counters, and the cache statistics if there is a cache
+     */
+    public String getStats() {
+        return "solved " + solved.get() + "\nrejected " + rejected.get() + "\ntimed out " + timedOut.get()
+                + "\nbad requests " + badRequests.get() + "\nin flight " + admitted.get()
+                + (cache != null ? "\ncache " + cache : "") + "\n";
+    }
+
+    /**
+     * Returns the port the server is listening on
+     * @return The port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server, giving requests being handled a second to finish
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        handlers.shutdownNow();
+        timer.shutdownNow();
+    }
+}
@@ -5,8 +5,13 @@ package lab6;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * This is a partial implementation of a SortedArrayList class.
@@ -21,7 +26,15 @@ import java.util.RandomAccess;
  * The following methods have been overridden as unsupported since
  * they do not make sense in the context of a sorted container:<br />
  *     public E set(int arg0, E arg1);<br />
- *  public void add(int arg0, E arg1);
+ *  public void add(int arg0, E arg1);<br />
+ * <br />
+ * The list holds one copy of each element: adding an element it already
+ * contains leaves it unchanged.<br />
+ * <br />
+ * For loading many elements at once the list can be put in bulk loading
+ * mode. Elements added in this mode are appended in O(1), and any that
+ * arrive out of order or repeated are sorted and merged in when the mode is
+ * left. The list cannot be read or removed from while in this mode.
  *
  * @author Spring 2014 CS2852 staff
  * @version 2014.04.22-2.40
@@ -30,6 +43,46 @@ import java.util.RandomAccess;
  */
 @SuppressWarnings("serial")
 public class SortedArrayList<E extends Comparable<? super E>> extends ArrayList<E> implements List<E>, RandomAccess {
+    /**
+     * Whether the list is in bulk loading mode
+     */
+    private boolean bulkLoading;
+
+    /**
+     * Number of leading elements known to be in sorted order. Only elements
+     * appended out of order in bulk loading mode lie beyond it.
+     */
+    private int sortedCount;
+
+    /**
+     * Puts the list in bulk loading mode. Until endBulkLoad is called, add and
+     * addAll append to the end of the list in O(1) instead of inserting in
+     * place. Elements appended in order stay sorted; once one is out of order
+     * or equal to the one before it, the rest are kept aside until endBulkLoad
+     * sorts them and merges them in, in O(n + k log k) for k elements kept aside.
+     * Any other call that reads or removes from the list throws an
+     * IllegalStateException until then.
+     */
+    public void beginBulkLoad() {
+        bulkLoading = true;
+    }
+
+    /**
+     * Merges in any elements kept aside, dropping duplicates, and leaves bulk
+     * loading mode
+     */
+    public void endBulkLoad() {
+        merge();
+        bulkLoading = false;
+    }
+
+    /**
+     * Returns whether the list is in bulk loading mode
+     * @return true between beginBulkLoad and endBulkLoad
+     */
+    public boolean isBulkLoading() {
+        return bulkLoading;
+    }
 
     /**
      * Returns <tt>true</tt> if this list contains the specified element.
@@ -42,9 +95,11 @@ public class SortedArrayList<E extends Comparable<? super E>> extends ArrayList<
      * @return <tt>true</tt> if this list contains the specified element.
      * @throws NullPointerException if the specified element is null and this
      *         list does not support null elements (optional).
+     * @throws IllegalStateException if the list is in bulk loading mode.
      */
     @Override
     public boolean contains(Object target) {
+        checkReadable();
         boolean found = false;
         try {
             found = 0<= Collections.binarySearch(this, (E) target);
@@ -56,14 +111,17 @@ public class SortedArrayList<E extends Comparable<? super E>> extends ArrayList<
 
     /**
      * Adds the specified element to the list while maintaining
-     * sorted order.<br />
+     * sorted order, unless the list already contains it.<br />
      * <br />
      * Uses binarySearch to find the location to insert the element
-     * and then calls add(int, E) to do the inserting.
+     * and then calls add(int, E) to do the inserting.  In bulk loading
+     * mode the element is appended instead, and a copy of an element
+     * already in the list is dropped by endBulkLoad.
      *
      * @param value element to be added to this list.
-     * @return <tt>true</tt> (as per the general contract of the
-     *            <tt>Collection.add</tt> method).
+     * @return <tt>true</tt> if the list did not already contain the
+     *            element, or in bulk loading mode if it was not equal to
+     *            the element added just before it.
      *
      * @throws ClassCastException if the class of the specified element
      *           prevents it from being added to this list.
@@ -72,8 +130,21 @@ public class SortedArrayList<E extends Comparable<? super E>> extends ArrayList<
      */
     @Override
     public boolean add(E value) {
+        if(bulkLoading) {
+            int size = super.size();
+            if(size > 0 && super.get(size - 1).compareTo(value) == 0) {
+                return false;
+            }
+            super.add(value);
+            extendSorted(size);
+            return true;
+        }
         // Find location for the value to be inserted
         int index = Collections.binarySearch(this, value);
+        // A matching value is already in the collection
+        if (index>=0) {
+            return false;
+        }
         // If no matching value is in the collection, index
         //  will be the negative of the location where it
         //  should be inserted.  For example, if the value
@@ -81,29 +152,87 @@ public class SortedArrayList<E extends Comparable<? super E>> extends ArrayList<
         //  will be -1.  The following modifies index so
         //  that it can be used to specify the location where
         //  value should be inserted.
-        if (index<0) {
-            ++index;
-            index *= -1;
-        }
+        ++index;
+        index *= -1;
         super.add(index, value);
+        ++sortedCount;
         return true;
     }
 
+    /**
+     * Counts the elements appended in bulk loading mode as sorted, up to the
+     * first one that is out of order or a duplicate of the one before it
+     * @param appendedFrom index of the first element appended
+     */
+    private void extendSorted(int appendedFrom) {
+        if(sortedCount >= appendedFrom) {
+            // Elements removed by an iterator or a sub list leave the count too high
+            sortedCount = appendedFrom;
+            int size = super.size();
+            while(sortedCount < size && (sortedCount == 0
+                    || super.get(sortedCount - 1).compareTo(super.get(sortedCount)) < 0)) {
+                ++sortedCount;
+            }
+        }
+    }
+
+    /**
+     * Sorts the elements appended out of order in bulk loading mode, merges
+     * them into the sorted elements before them and keeps one copy of each
+     */
+    private void merge() {
+        int size = super.size();
+        if(sortedCount >= size) {
+            // Elements removed by an iterator or a sub list leave the count too high
+            sortedCount = size;
+            return;
+        }
+        // The sorted prefix is a single run to the merge sort, so this costs
+        // O(k log k) for the k elements kept aside plus one linear merge
+        super.sort(null);
+        // Equal elements are now next to each other, so one pass drops the copies
+        int kept = 1;
+        for(int i = 1; i < size; ++i) {
+            E element = super.get(i);
+            if(super.get(kept - 1).compareTo(element) != 0) {
+                super.set(kept++, element);
+            }
+        }
+        removeRange(kept, size);
+        sortedCount = kept;
+    }
+
+    /**
+     * Makes sure the list is not in bulk loading mode before it is read
+     * @throws IllegalStateException if the list is in bulk loading mode
+     */
+    private void checkReadable() {
+        if(bulkLoading) {
+            throw new IllegalStateException("The list cannot be read until endBulkLoad is called.");
+        }
+    }
+
     /**
      * Adds all of the elements in the specified collection to this list
-     * and ensures that they are in sorted order.
+     * and ensures that they are in sorted order.  Elements the list
+     * already contains, and repeats within the collection, are added
+     * once.  The elements are appended, sorted and merged in, in
+     * O(n + k log k) for k elements added.  In bulk loading mode the
+     * sorting and merging is left to endBulkLoad.
      * @param collection collection containing elements to be added to this list
-     * @return true if this list changed as a result of the call
+     * @return true if this list changed as a result of the call, or in
+     *            bulk loading mode if the collection was not empty
      */
     @Override
     public boolean addAll(Collection<? extends E> collection) {
-        List<E> tmp = new ArrayList<>(collection.size() + this.size());
-        tmp.addAll(this);
-        tmp.addAll(collection);
-        Collections.sort(tmp);
-        this.clear();
-        super.addAll(tmp);
-        return !collection.isEmpty();
+        int size = super.size();
+        super.addAll(collection);
+        extendSorted(size);
+        if(bulkLoading) {
+            return !collection.isEmpty();
+        }
+        merge();
+        return super.size() != size;
     }
 
     /**
@@ -146,9 +275,11 @@ public class SortedArrayList<E extends Comparable<? super E>> extends ArrayList<
      * @param target element to search for.
      * @return the index in this list of the first occurrence of the specified
      *            element, or -1 if this list does not contain this element.
+     * @throws IllegalStateException if the list is in bulk loading mode.
      */
     @Override
     public int indexOf(Object target) {
+        checkReadable();
         int index = -1;
         try {
             index = Collections.binarySearch(this, (E)target);
@@ -157,5 +288,275 @@ public class SortedArrayList<E extends Comparable<? super E>> extends ArrayList<
         }
         return index<0 ? -1 : index;
     }
-}
 
+    /**
+     * Returns the number of elements in this list.
+     *
+     * @return the number of elements in this list.
+     * @throws IllegalStateException if the list is in bulk loading mode.
+     */
+    @Override
+    public int size() {
+        checkReadable();
+        return super.size();
+    }
+
+    /**
+     * Returns the element at the specified position in this list.
+     *
+     * @param index index of the element to return.
+     * @return the element at the specified position in this list.
+     * @throws IllegalStateException if the list is in bulk loading mode.
+     */
+    @Override
+    public E get(int index) {
+        checkReadable();
+        return super.get(index);
+    }
+
+    /**
+     * Returns the index in this list of the last occurrence of the specified
+     * element, or -1 if this list does not contain this element.
+     *
+     * @param target element to search for.
+     * @return the index in this list of the last occurrence of the specified
+     *            element, or -1 if this list does not contain this element.
+     * @throws IllegalStateException if the list is in bulk loading mode.
+     */
+    @Override
+    public int lastIndexOf(Object target) {
+        checkReadable();
+        return super.lastIndexOf(target);
+    }
+
+    /**
+     * Returns an array containing all of the elements in this list in
+     * sorted order.
+     *
+     * @return an array containing all of the elements in this list.
+     * @throws IllegalStateException if the list is in bulk loading mode.
+     */
+    @Override
+    public Object[] toArray() {
+        checkReadable();
+        return super.toArray();
+    }
+
+    /**
+     * Returns an array containing all of the elements in this list in
+     * sorted order; the runtime type of the returned array is that of the
+     * specified array.
+     *
+     * @param array the array into which the elements of the list are to be
+     *            stored, if it is big enough.
+     * @return an array containing the elements of the list.
+     * @throws IllegalStateException if the list is in bulk loading mode.
+     */
+    @Override
+    public <T> T[] toArray(T[] array) {
+        checkReadable();
+        return super.toArray(array);
+    }
+
+    /**
+     * Returns an iterator over the elements in this list in sorted order.
+     *
+     * @return an iterator over the elements in this list.
+     * @throws IllegalStateException if the list is in bulk loading mode.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        checkReadable();
+        return super.iterator();
+    }
+
+    /**
+     * Returns a list iterator over the elements in this list in sorted order.
+     *
+     * @return a list iterator over the elements in this list.
+     * @throws IllegalStateException if the list is in bulk loading mode.
+     */
+    @Override
+    public ListIterator<E> listIterator() {
+        checkReadable();
+        return super.listIterator();
+    }
+
+    /**
+     * Returns a list iterator over the elements in this list in sorted
+     * order, starting at the specified position in the list.
+     *
+     * @param index index of the first element to be returned by the
+     *            list iterator.
+     * @return a list iterator over the elements in this list.
+     * @throws IllegalStateException if the list is in bulk loading mode.
+     */
+    @Override
+    public ListIterator<E> listIterator(int index) {
+        checkReadable();
+        return super.listIterator(index);
+    }
+
+    /**
+     * Returns a view of the portion of this list between the specified
+     * fromIndex, inclusive, and toIndex, exclusive.
+     *
+     * @param fromIndex low endpoint (inclusive) of the subList.
+     * @param toIndex high endpoint (exclusive) of the subList.
+     * @return a view of the specified range within this list.
+     * @throws IllegalStateException if the list is in bulk loading mode.
+     */
+    @Override
+    public List<E> subList(int fromIndex, int toIndex) {
+        checkReadable();
+        return super.subList(fromIndex, toIndex);
+    }
+
+    /**
+     * Returns a spliterator over the elements in this list in sorted order.
+     *
+     * @return a spliterator over the elements in this list.
+     * @throws IllegalStateException if the list is in bulk loading mode.
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        checkReadable();
+        return super.spliterator();
+    }
+
+    /**
+     * Performs the given action for each element of the list in sorted order.
+     *
+     * @param action the action to be performed for each element.
+     * @throws IllegalStateException if the list is in bulk loading mode.
+     */
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        checkReadable();
+        super.forEach(action);
+    }
+
+    /**
+     * Compares the specified object with this list for equality.
+     *
+     * @param other the object to be compared for equality with this list.
+     * @return <tt>true</tt> if the specified object is equal to this list.
+     * @throws IllegalStateException if the list is in bulk loading mode.
+     */
+    @Override
+    public boolean equals(Object other) {
+        checkReadable();
+        return super.equals(other);
+    }
+
+    /**
+     * Returns the hash code value for this list.
+     *
+     * @return the hash code value for this list.
+     * @throws IllegalStateException if the list is in bulk loading mode.
+     */
+    @Override
+    public int hashCode() {
+        checkReadable();
+        return super.hashCode();
+    }
+
+    /**
+     * Returns a shallow copy of this list.
+     *
+     * @return a clone of this list.
+     * @throws IllegalStateException if the list is in bulk loading mode.
+     */
+    @Override
+    public Object clone() {
+        checkReadable();
+        return super.clone();
+    }
+
+    /**
+     * Removes the element at the specified position in this list.
+     *
+     * @param index the index of the element to be removed.
+     * @return the element that was removed from the list.
+     * @throws IllegalStateException if the list is in bulk loading mode.
+     */
+    @Override
+    public E remove(int index) {
+        checkReadable();
+        E removed = super.remove(index);
+        sortedCount = super.size();
+        return removed;
+    }
+
+    /**
+     * Removes the specified element from this list, if it is present.
+     *
+     * @param target element to be removed from this list, if present.
+     * @return <tt>true</tt> if this list contained the specified element.
+     * @throws IllegalStateException if the list is in bulk loading mode.
+     */
+    @Override
+    public boolean remove(Object target) {
+        checkReadable();
+        boolean removed = super.remove(target);
+        sortedCount = super.size();
+        return removed;
+    }
+
+    /**
+     * Removes from this list all of its elements that are contained in the
+     * specified collection.
+     *
+     * @param collection collection containing elements to be removed from this list.
+     * @return <tt>true</tt> if this list changed as a result of the call.
+     * @throws IllegalStateException if the list is in bulk loading mode.
+     */
+    @Override
+    public boolean removeAll(Collection<?> collection) {
+        checkReadable();
+        boolean removed = super.removeAll(collection);
+        sortedCount = super.size();
+        return removed;
+    }
+
+    /**
+     * Retains only the elements in this list that are contained in the
+     * specified collection.
+     *
+     * @param collection collection containing elements to be retained in this list.
+     * @return <tt>true</tt> if this list changed as a result of the call.
+     * @throws IllegalStateException if the list is in bulk loading mode.
+     */
+    @Override
+    public boolean retainAll(Collection<?> collection) {
+        checkReadable();
+        boolean removed = super.retainAll(collection);
+        sortedCount = super.size();
+        return removed;
+    }
+
+    /**
+     * Removes all of the elements of this list that satisfy the given predicate.
+     *
+     * @param filter a predicate which returns <tt>true</tt> for elements to be removed.
+     * @return <tt>true</tt> if any elements were removed.
+     * @throws IllegalStateException if the list is in bulk loading mode.
+     */
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        checkReadable();
+        boolean removed = super.removeIf(filter);
+        sortedCount = super.size();
+        return removed;
+    }
+
+    /**
+     * Removes all of the elements from this list.  Allowed in bulk loading
+     * mode, which the list stays in.
+     */
+    @Override
+    public void clear() {
+        super.clear();
+        sortedCount = 0;
+    }
+}
@@ -0,0 +1,93 @@
+package lab6;
+
+import lab6.guswilerib.WordSink;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Writes the words found by a search as they are found, so nothing has to be
+ * kept until the search ends. Since the number of words is not known up
+ * front, it is written after the words rather than before them, and the words
+ * appear in the order they were found rather than alphabetically. The output
+ * is flushed with the first word and then every so often, so a reader
+ * following the file sees words soon after they are found. A failed write is
+ * noticed when the output is next flushed.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public class StreamingResultWriter implements WordSink, Closeable {
+    /**
+     * Longest time a found word may sit in the output buffer, in nanoseconds
+     */
+    private static final long FLUSH_NANOS = 100000000L;
+
+    /**
+     * Where the results are written
+     */
+    private final PrintWriter printStream;
+
+    /**
+     * Number of words written so far
+     */
+    private int count;
+
+    /**
+     * Time of the last flush, from System.nanoTime
+     */
+    private long lastFlush;
+
+    /**
+     * Creates a writer and writes the heading of the results
+     * @param printStream Where the results are written, which is closed with this writer
+     */
+    public StreamingResultWriter(PrintWriter printStream) {
+        this.printStream = printStream;
+        printStream.println("The following words were found:");
+        printStream.print(System.getProperty("line.separator"));
+    }
+
+    /**
+     * Writes a word found by the search
+     * @param word The word found
+     * @return <tt>true</tt> unless a flush found that the output can no longer
+     *         be written, which cancels the search
+     */
+    @Override
+    public boolean accept(String word) {
+        printStream.println("\t" + word);
+        long now = System.nanoTime();
+        boolean failed = false;
+        if(count++ == 0 || now - lastFlush > FLUSH_NANOS) {
+            // checkError flushes the output before reporting whether any write failed
+            failed = printStream.checkError();
+            lastFlush = now;
+        }
+        return !failed;
+    }
+
+    /**
+     * Returns the number of words written so far
+     * @return Number of words
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Writes the number of words found and closes the output
+     * @throws IOException if any of the results could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        printStream.print(System.getProperty("line.separator"));
+        printStream.println(count + " words were found.");
+        boolean failed = printStream.checkError();
+        printStream.close();
+        if(failed) {
+            throw new IOException("The results could not be written.");
+        }
+    }
+}
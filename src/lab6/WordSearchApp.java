@@ -2,16 +2,15 @@ package lab6;
 
 import lab6.guswilerib.WordFinder;
 import lab6.guswilerib.Dictionary;
+import lab6.guswilerib.ResultOutputEvent;
+import lab6.guswilerib.Trie;
 
 import java.util.Collection;
-import java.util.List;
-import java.util.Scanner;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.File;
 import java.io.PrintWriter;
-import java.util.ArrayList;
 import javax.swing.JOptionPane;
 
 /**
@@ -28,24 +27,10 @@ public class WordSearchApp {
      * Collection of words known to be spelled correctly
      */
 //TODO:
-    // Replace SortedArrayList with ArrayList or LinkedList to observe
-    // changes in how fast the application runs.
-    private final Dictionary dictionary = new Dictionary(new ArrayList<String>());
-
-    /**
-     * List of game pieces that compose the game board
-     */
-    private final List<GamePiece<Character>> gameBoard = new ArrayList<>();
-
-    /**
-     * Default number of rows
-     */
-    private int rows = 0;
-
-    /**
-     * Default number of columns
-     */
-    private int cols = 0;
+    // Replace Trie with SortedArrayList, ArrayList or LinkedList to observe
+    // changes in how fast the application runs. Only the Trie and sorted
+    // collections let the search skip prefixes that cannot become words.
+    private final Dictionary dictionary = new Dictionary(new Trie());
 
     /**
      * Static entry point
@@ -66,9 +51,9 @@ public class WordSearchApp {
     private void start() throws IOException {
 
         dictionary.load(selectFile("dictionary.txt", "dictionary"));
-        loadGameBoard(new File(selectFile(null, "game board")));
+        GameBoard gameBoard = GameBoard.load(new File(selectFile(null, "game board")));
 
-        WordFinder wf = new WordFinder(gameBoard, dictionary, rows, cols);
+        WordFinder wf = new WordFinder(gameBoard.getPieces(), dictionary, gameBoard.getRows(), gameBoard.getCols());
         wf.startSearching();
         outputResults(wf.getResults(), "results.txt");
     }
@@ -98,47 +83,38 @@ public class WordSearchApp {
         return filename;
     }
 
-    /**
-     * This method will parse through the input file and translate the text
-     * file into a List of game pieces
-     * @param boardFile File supplied by the user for the game board
-     */
-    private void loadGameBoard(File boardFile) throws IOException {
-        try (Scanner inputScanner = new Scanner(boardFile)) {
-            inputScanner.useDelimiter(System.getProperty("line.separator"));
-            cols = -1;
-            while(inputScanner.hasNextLine()) {
-                char[] currLine = inputScanner.nextLine().toCharArray();
-                if(cols!=-1 && cols!=currLine.length) {
-                    throw new IOException("Not all rows have the same number of columns.");
-                }
-                cols = currLine.length;
-                for(Character letter : currLine) {
-                    gameBoard.add(new GamePiece<>(letter, false));
-                }
-                rows++;
-            }
-        }
-    }
-
     /**
      * Output method for storing the results in a file
      * @param results A copy of the words found from the WordFinder
+     * @param filename Name of the file the results are written to
      */
     private void outputResults(Collection<String> results, String filename) {
         if(results!=null) {
+            ResultOutputEvent event = new ResultOutputEvent();
+            event.begin();
             try (PrintWriter printStream = new PrintWriter(new FileOutputStream(new File(filename)))) {
-
-                printStream.println("The following " + results.size() + " words were found:");
-                printStream.print(System.getProperty("line.separator"));
-                for(String found : results) {
-                    printStream.println("\t" + found);
-                }
-                printStream.print(System.getProperty("line.separator"));
-                printStream.flush();
+                printResults(results, printStream);
+                event.destination = filename;
+                event.words = results.size();
+                event.commit();
             } catch(FileNotFoundException e) {
                 JOptionPane.showMessageDialog(null, "Error writing output file.  Continuing to run without producing output file.");
             }
         }
     }
+
+    /**
+     * Prints the words found in a search in the layout of the results file
+     * @param results The words found
+     * @param printStream Where the results are printed
+     */
+    static void printResults(Collection<String> results, PrintWriter printStream) {
+        printStream.println("The following " + results.size() + " words were found:");
+        printStream.print(System.getProperty("line.separator"));
+        for(String found : results) {
+            printStream.println("\t" + found);
+        }
+        printStream.print(System.getProperty("line.separator"));
+        printStream.flush();
+    }
 }
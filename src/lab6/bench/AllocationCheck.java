@@ -0,0 +1,118 @@
+package lab6.bench;
+
+import lab6.GameBoard;
+import lab6.guswilerib.Dawg;
+import lab6.guswilerib.Dictionary;
+import lab6.guswilerib.Trie;
+import lab6.guswilerib.WordFinder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collection;
+
+/**
+ * Checks that searching a board with a word graph dictionary allocates
+ * nothing per node visited. A finder searches the same board over and over
+ * until the JIT has compiled the search, so every later search finds only
+ * words it has found before and should allocate no more than the arrays a
+ * search sets up once per start cell. The fewest bytes the calling thread
+ * allocates in any of a few more searches, which leaves out the odd search
+ * the JIT recompiles under, are compared with that allowance, and the
+ * program exits with status 1 if a board goes over it.<br />
+ * <br />
+ * Usage: <tt>java lab6.bench.AllocationCheck [dictionary.txt] [board size ...]</tt>
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public class AllocationCheck {
+    /**
+     * Milliseconds spent searching before measuring
+     */
+    private static final long WARMUP_MILLIS = 2000;
+
+    /**
+     * Number of searches measured, of which the smallest allocation counts
+     */
+    private static final int MEASURED_SEARCHES = 5;
+
+    /**
+     * Bytes a search may allocate however large the board, for its search
+     * state and metrics
+     */
+    private static final long SEARCH_BYTES = 16 * 1024;
+
+    /**
+     * Bytes a search may allocate per start cell, for the visited flag and
+     * time kept for each one
+     */
+    private static final long CELL_BYTES = 16;
+
+    /**
+     * Static entry point
+     * @param args optional path to the dictionary file (defaults to dictionary.txt),
+     *             followed by the board sizes to check (defaults to 20, 50 and 100)
+     */
+    public static void main(String[] args) {
+        String fileName = args.length > 0 ? args[0] : "dictionary.txt";
+        int[] sizes = {20, 50, 100};
+        if(args.length > 1) {
+            sizes = new int[args.length - 1];
+            for(int i = 1; i < args.length; i++) {
+                sizes[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if(!(threads instanceof com.sun.management.ThreadMXBean)) {
+            System.err.println("This JVM cannot report the bytes a thread allocates.");
+            System.exit(2);
+        }
+        com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threads;
+
+        boolean passed = true;
+        for(String backing : new String[]{"Trie", "Dawg"}) {
+            Dictionary dictionary = new Dictionary(backing.equals("Trie") ? new Trie() : new Dawg());
+            dictionary.load(fileName);
+            for(int size : sizes) {
+                passed &= check(backing, dictionary, size, allocation);
+            }
+        }
+        if(!passed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Searches one board until warm, then measures what a search allocates
+     * @param backing name of the dictionary backing, shown in the report
+     * @param dictionary dictionary backed by a word graph
+     * @param size number of rows and columns of the board
+     * @param allocation bean reporting the bytes the thread has allocated
+     * @return true if the search allocating the least stayed within the allowance and found no new words
+     */
+    private static boolean check(String backing, Dictionary dictionary, int size,
+                                 com.sun.management.ThreadMXBean allocation) {
+        GameBoard board = GameBoard.random(size, size, size);
+        WordFinder finder = new WordFinder(board.getPieces(), dictionary, size, size);
+        long warmupEnd = System.nanoTime() + WARMUP_MILLIS * 1000000L;
+        do {
+            finder.startSearching(1);
+        } while(System.nanoTime() < warmupEnd);
+        Collection<String> results = finder.getResults();
+        int words = results.size();
+
+        long thread = Thread.currentThread().getId();
+        long fewest = Long.MAX_VALUE;
+        for(int i = 0; i < MEASURED_SEARCHES; i++) {
+            long before = allocation.getThreadAllocatedBytes(thread);
+            finder.startSearching(1);
+            fewest = Math.min(fewest, allocation.getThreadAllocatedBytes(thread) - before);
+        }
+        long nodes = finder.getMetrics().getNodesVisited();
+        long allowed = SEARCH_BYTES + CELL_BYTES * size * size;
+        boolean passed = fewest <= allowed && finder.getResults().size() == words;
+        System.out.println(String.format("%-5s %3dx%-3d %,12d nodes %,10d bytes (%,d allowed) %s", backing,
+                size, size, nodes, fewest, allowed, passed ? "ok" : "FAILED"));
+        return passed;
+    }
+}
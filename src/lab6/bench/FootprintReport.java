@@ -0,0 +1,125 @@
+package lab6.bench;
+
+import lab6.SortedArrayList;
+import lab6.guswilerib.Dawg;
+import lab6.guswilerib.EytzingerSet;
+import lab6.guswilerib.OffHeapWordPool;
+import lab6.guswilerib.Dictionary;
+import lab6.guswilerib.DictionaryImage;
+import lab6.guswilerib.Trie;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.TreeSet;
+
+/**
+ * Reports how much heap each dictionary backing collection holds once the
+ * dictionary file has been loaded into it. The heap in use is sampled after
+ * forcing garbage collection before and after each load, so the numbers are
+ * estimates; run with a fixed heap (for example -Xms1g -Xmx1g) to keep them
+ * steady. The time a full garbage collection takes while the dictionary is
+ * loaded is reported too, since the collector has to walk every object the
+ * dictionary holds. The dictionary is also compiled into a temporary image to
+ * show what opening the memory mapped image keeps on the heap.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public class FootprintReport {
+    /**
+     * Number of garbage collections requested before each sample
+     */
+    private static final int GC_PASSES = 5;
+
+    /**
+     * Static entry point
+     * @param args optional path to the dictionary file (defaults to dictionary.txt)
+     * @throws IOException if the dictionary image cannot be compiled or opened
+     */
+    public static void main(String[] args) throws IOException {
+        String fileName = args.length > 0 ? args[0] : "dictionary.txt";
+        DecimalFormat format = new DecimalFormat("###,###,###,###");
+
+        System.out.println("Heap retained by a loaded " + fileName + ":");
+        report("ArrayList", new ArrayList<String>(), fileName, format);
+        report("SortedArrayList", new SortedArrayList<String>(), fileName, format);
+        report("TreeSet", new TreeSet<String>(), fileName, format);
+        report("EytzingerSet", new EytzingerSet(), fileName, format);
+        report("OffHeapWordPool", new OffHeapWordPool(), fileName, format);
+        report("Trie", new Trie(), fileName, format);
+        report("Dawg", new Dawg(), fileName, format);
+        reportImage(fileName, format);
+    }
+
+    /**
+     * Loads the dictionary into one collection and prints the heap it retains
+     * @param name name of the collection shown in the report
+     * @param collection empty collection to load the dictionary into
+     * @param fileName dictionary file to load
+     * @param format format for byte counts
+     */
+    private static void report(String name, Collection<String> collection, String fileName,
+                               DecimalFormat format) {
+        long before = usedHeap();
+        Dictionary dictionary = new Dictionary(collection);
+        dictionary.load(fileName);
+        // Lazily built structures are measured in their final form
+        dictionary.prepare();
+        long after = usedHeap();
+        long gcNanos = fullGcNanos();
+        String offHeap = collection instanceof OffHeapWordPool
+                ? String.format(", %,d bytes off heap", ((OffHeapWordPool) collection).offHeapBytes()) : "";
+        System.out.println(String.format("%-16s %12s bytes  full GC %6.1f ms  (%,d words%s)", name,
+                format.format(after - before), gcNanos / 1e6, collection.size(), offHeap));
+        dictionary.clear();
+    }
+
+    /**
+     * Compiles the dictionary into an image, opens it and prints the heap the
+     * opened dictionary retains. The mapped file itself is not on the heap.
+     * @param fileName dictionary file to compile
+     * @param format format for byte counts
+     * @throws IOException if the image cannot be compiled or opened
+     */
+    private static void reportImage(String fileName, DecimalFormat format) throws IOException {
+        File image = File.createTempFile("dictionary", ".img");
+        image.deleteOnExit();
+        DictionaryImage.compile(fileName, image.getPath());
+        long before = usedHeap();
+        Dictionary dictionary = Dictionary.openImage(image.getPath());
+        dictionary.prepare();
+        long after = usedHeap();
+        long gcNanos = fullGcNanos();
+        System.out.println(String.format("%-16s %12s bytes  full GC %6.1f ms  (%,d words, %,d byte image)",
+                "DictionaryImage", format.format(after - before), gcNanos / 1e6, dictionary.size(), image.length()));
+    }
+
+    /**
+     * Times the fastest of a few full garbage collections
+     * @return nanoseconds taken by the fastest collection
+     */
+    private static long fullGcNanos() {
+        long fastest = Long.MAX_VALUE;
+        for(int i = 0; i < GC_PASSES; i++) {
+            long start = System.nanoTime();
+            System.gc();
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        return fastest;
+    }
+
+    /**
+     * Returns the heap in use after asking for a few garbage collections
+     * @return bytes of heap in use
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < GC_PASSES; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,318 @@
+package lab6.bench;
+
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Small benchmark harness in the spirit of JMH's average time mode. Each
+ * benchmark is run for a number of warmup iterations that are thrown away,
+ * then for a number of measured iterations. An iteration calls the operation
+ * over and over until a minimum time has passed. Alongside the time per
+ * operation it records the bytes allocated per operation (on JVMs that can
+ * report it) and the garbage collections that happened while measuring.<br />
+ * <br />
+ * Results are printed as they finish and can be written out as JSON in a
+ * layout close to JMH's, so runs of different releases can be compared.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public class Harness {
+    /**
+     * An operation to be benchmarked
+     */
+    public interface Operation {
+        /**
+         * Runs the operation once
+         * @return any result of the operation, so the JIT cannot discard the work
+         * @throws Exception if the operation fails, which stops the benchmark
+         */
+        Object run() throws Exception;
+    }
+
+    /**
+     * Number of iterations run before measuring
+     */
+    private final int warmupIterations;
+
+    /**
+     * Number of iterations measured
+     */
+    private final int measurementIterations;
+
+    /**
+     * Minimum length of an iteration in nanoseconds
+     */
+    private final long iterationNanos;
+
+    /**
+     * Results of the benchmarks run so far
+     */
+    private final List<Result> results = new ArrayList<>();
+
+    /**
+     * Sink for operation results so their work is not optimized away
+     */
+    private volatile int blackhole;
+
+    /**
+     * Creates a harness
+     * @param warmupIterations number of iterations run before measuring
+     * @param measurementIterations number of iterations measured
+     * @param iterationMillis minimum length of an iteration in milliseconds
+     */
+    public Harness(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1000000L;
+    }
+
+    /**
+     * Benchmarks an operation and records the result
+     * @param benchmark name of the benchmark
+     * @param params parameters the operation was set up with, shown alongside the result
+     * @param operation operation to benchmark
+     * @return the result
+     * @throws Exception if the operation fails
+     */
+    public Result run(String benchmark, Map<String, String> params, Operation operation) throws Exception {
+        for(int i = 0; i < warmupIterations; i++) {
+            iterate(operation);
+        }
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+        long operations = 0;
+        long nanos = 0;
+        long allocated = 0;
+        double[] scores = new double[measurementIterations];
+        for(int i = 0; i < measurementIterations; i++) {
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            long count = iterate(operation);
+            long elapsed = System.nanoTime() - start;
+            allocated += allocatedBytes() - allocatedBefore;
+            operations += count;
+            nanos += elapsed;
+            scores[i] = (double) elapsed / count;
+        }
+        Result result = new Result(benchmark, new LinkedHashMap<>(params), scores,
+                (double) nanos / operations, allocatedBytes() < 0 ? Double.NaN : (double) allocated / operations,
+                gcCount() - gcCount, gcMillis() - gcMillis);
+        results.add(result);
+        System.out.println(result);
+        return result;
+    }
+
+    /**
+     * Returns the results of the benchmarks run so far
+     * @return the results, in the order they were run
+     */
+    public List<Result> getResults() {
+        return results;
+    }
+
+    /**
+     * Writes the results of the benchmarks run so far as a JSON array
+     * @param fileName file to write to
+     * @throws FileNotFoundException if the file cannot be created
+     */
+    public void writeJson(String fileName) throws FileNotFoundException {
+        try (PrintWriter out = new PrintWriter(fileName)) {
+            out.println("[");
+            for(int i = 0; i < results.size(); i++) {
+                out.print(results.get(i).toJson());
+                out.println(i < results.size() - 1 ? "," : "");
+            }
+            out.println("]");
+        }
+    }
+
+    /**
+     * Calls an operation until the iteration time has passed
+     * @param operation operation to call
+     * @return number of times the operation was called
+     * @throws Exception if the operation fails
+     */
+    private long iterate(Operation operation) throws Exception {
+        long end = System.nanoTime() + iterationNanos;
+        long count = 0;
+        do {
+            Object value = operation.run();
+            blackhole ^= value == null ? 0 : value.hashCode();
+            count++;
+        } while(System.nanoTime() < end);
+        return count;
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread so far
+     * @return bytes allocated, or -1 if the JVM cannot report it
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if(threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of garbage collections so far
+     * @return collections run by all collectors
+     */
+    private static long gcCount() {
+        long count = 0;
+        for(GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(collector.getCollectionCount(), 0);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the time spent collecting garbage so far
+     * @return milliseconds spent by all collectors
+     */
+    private static long gcMillis() {
+        long millis = 0;
+        for(GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(collector.getCollectionTime(), 0);
+        }
+        return millis;
+    }
+
+    /**
+     * The measurements of one benchmark
+     */
+    public static class Result {
+        /**
+         * Name of the benchmark
+         */
+        private final String benchmark;
+
+        /**
+         * Parameters the operation was set up with
+         */
+        private final Map<String, String> params;
+
+        /**
+         * Average nanoseconds per operation of each measured iteration
+         */
+        private final double[] scores;
+
+        /**
+         * Average nanoseconds per operation over all measured iterations
+         */
+        private final double nanosPerOperation;
+
+        /**
+         * Bytes allocated per operation, or NaN if the JVM cannot report it
+         */
+        private final double bytesPerOperation;
+
+        /**
+         * Garbage collections while measuring
+         */
+        private final long gcCount;
+
+        /**
+         * Milliseconds spent collecting garbage while measuring
+         */
+        private final long gcMillis;
+
+        /**
+         * Creates a result
+         * @param benchmark name of the benchmark
+         * @param params parameters the operation was set up with
+         * @param scores average nanoseconds per operation of each measured iteration
+         * @param nanosPerOperation average nanoseconds per operation
+         * @param bytesPerOperation bytes allocated per operation
+         * @param gcCount garbage collections while measuring
+         * @param gcMillis milliseconds spent collecting garbage while measuring
+         */
+        private Result(String benchmark, Map<String, String> params, double[] scores, double nanosPerOperation,
+                       double bytesPerOperation, long gcCount, long gcMillis) {
+            this.benchmark = benchmark;
+            this.params = params;
+            this.scores = scores;
+            this.nanosPerOperation = nanosPerOperation;
+            this.bytesPerOperation = bytesPerOperation;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+        }
+
+        /**
+         * Returns the average time per operation
+         * @return nanoseconds per operation
+         */
+        public double getNanosPerOperation() {
+            return nanosPerOperation;
+        }
+
+        /**
+         * Returns the bytes allocated per operation
+         * @return bytes per operation, or NaN if the JVM cannot report it
+         */
+        public double getBytesPerOperation() {
+            return bytesPerOperation;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-32s %-48s %,16.1f ns/op %,14.1f B/op %4d GCs %6d ms",
+                    benchmark, params, nanosPerOperation, bytesPerOperation, gcCount, gcMillis);
+        }
+
+        /**
+         * Formats the result as a JSON object in the layout used by JMH
+         * @return the JSON text
+         */
+        private String toJson() {
+            StringBuilder json = new StringBuilder();
+            json.append("  {\n    \"benchmark\": \"").append(escape(benchmark)).append("\",\n");
+            json.append("    \"mode\": \"avgt\",\n    \"params\": {");
+            String separator = "";
+            for(Map.Entry<String, String> param : params.entrySet()) {
+                json.append(separator).append('"').append(escape(param.getKey())).append("\": \"")
+                        .append(escape(param.getValue())).append('"');
+                separator = ", ";
+            }
+            json.append("},\n    \"primaryMetric\": {\"score\": ").append(number(nanosPerOperation))
+                    .append(", \"scoreUnit\": \"ns/op\", \"rawData\": [");
+            for(int i = 0; i < scores.length; i++) {
+                json.append(i == 0 ? "" : ", ").append(number(scores[i]));
+            }
+            json.append("]},\n    \"secondaryMetrics\": {\n");
+            json.append("      \"gc.alloc.rate.norm\": {\"score\": ").append(number(bytesPerOperation))
+                    .append(", \"scoreUnit\": \"B/op\"},\n");
+            json.append("      \"gc.count\": {\"score\": ").append(gcCount).append(", \"scoreUnit\": \"counts\"},\n");
+            json.append("      \"gc.time\": {\"score\": ").append(gcMillis).append(", \"scoreUnit\": \"ms\"}\n");
+            json.append("    }\n  }");
+            return json.toString();
+        }
+
+        /**
+         * Formats a number for JSON, which has no representation for NaN
+         * @param value number to format
+         * @return the number, or null if it is not a number
+         */
+        private static String number(double value) {
+            return Double.isNaN(value) || Double.isInfinite(value) ? "null" : String.valueOf(value);
+        }
+
+        /**
+         * Escapes quotes and backslashes for a JSON string
+         * @param text text to escape
+         * @return the escaped text
+         */
+        private static String escape(String text) {
+            return text.replace("\\", "\\\\").replace("\"", "\\\"");
+        }
+    }
+}
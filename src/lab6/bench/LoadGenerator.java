@@ -0,0 +1,254 @@
+package lab6.bench;
+
+import lab6.GameBoard;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sends search requests to a running SolverServer from a number of client
+ * threads, each sending its next request as soon as the last one is answered,
+ * and reports the latencies and the requests answered per second. Each client
+ * cycles through its own random boards, so a server with a result cache sees
+ * the same boards again.<br />
+ * <br />
+ * Usage: <tt>java lab6.bench.LoadGenerator [-url http://localhost:8852]
+ * [-c clients] [-s seconds] [-w warmup seconds] [-b board size]
+ * [-n boards per client] [-topology 8-way]</tt>
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public class LoadGenerator {
+    /**
+     * Solve endpoint of the server, with the topology in the query
+     */
+    private final URI uri;
+
+    /**
+     * Number of client threads
+     */
+    private final int clients;
+
+    /**
+     * Bodies of the requests each client sends, one board per body
+     */
+    private final String[][] boards;
+
+    /**
+     * HTTP client shared by every client thread
+     */
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    /**
+     * Creates a load generator
+     * @param server Address of the server, such as http://localhost:8852
+     * @param topology Name of the topology the boards are searched with
+     * @param clients Number of client threads
+     * @param boardSize Number of rows and columns of each board
+     * @param boardsPerClient Number of different boards each client sends
+     */
+    public LoadGenerator(String server, String topology, int clients, int boardSize, int boardsPerClient) {
+        uri = URI.create(server + "/solve?topology=" + topology);
+        this.clients = clients;
+        boards = new String[clients][boardsPerClient];
+        for(int client = 0; client < clients; ++client) {
+            for(int i = 0; i < boardsPerClient; ++i) {
+                GameBoard board = GameBoard.random(boardSize, boardSize, (long) client * boardsPerClient + i);
+                StringBuilder body = new StringBuilder();
+                for(int j = 0; j < board.getPieces().size(); ++j) {
+                    body.append(board.getPieces().get(j).getElement());
+                    if(j % boardSize == boardSize - 1) {
+                        body.append('\n');
+                    }
+                }
+                boards[client][i] = body.toString();
+            }
+        }
+    }
+
+    /**
+     * Static entry point
+     * @param args Command line options, see the class description
+     * @throws InterruptedException if interrupted while the clients run
+     */
+    public static void main(String[] args) throws InterruptedException {
+        String server = "http://localhost:8852";
+        String topology = "8-way";
+        int clients = 8;
+        double seconds = 10;
+        double warmupSeconds = 2;
+        int boardSize = 16;
+        int boardsPerClient = 50;
+        for(int i = 0; i < args.length; i++) {
+            switch(args[i]) {
+                case "-url": server = args[++i]; break;
+                case "-c": clients = Integer.parseInt(args[++i]); break;
+                case "-s": seconds = Double.parseDouble(args[++i]); break;
+                case "-w": warmupSeconds = Double.parseDouble(args[++i]); break;
+                case "-b": boardSize = Integer.parseInt(args[++i]); break;
+                case "-n": boardsPerClient = Integer.parseInt(args[++i]); break;
+                case "-topology": topology = args[++i]; break;
+                default:
+                    System.err.println("Usage: java lab6.bench.LoadGenerator [-url http://localhost:8852]"
+                            + " [-c clients] [-s seconds] [-w warmup seconds] [-b board size]"
+                            + " [-n boards per client] [-topology 8-way]");
+                    System.exit(1);
+            }
+        }
+        LoadGenerator generator = new LoadGenerator(server, topology, clients, boardSize, boardsPerClient);
+        if(warmupSeconds > 0) {
+            generator.run(warmupSeconds);
+        }
+        System.out.println(generator.run(seconds));
+    }
+
+    /**
+     * Sends requests from every client until the time is up
+     * @param seconds How long to send requests for
+     * @return Latencies and throughput of the requests answered in that time
+     * @throws InterruptedException if interrupted while the clients run
+     */
+    public Report run(double seconds) throws InterruptedException {
+        final long end = System.nanoTime() + (long) (seconds * 1e9);
+        final long[][] latencies = new long[clients][];
+        final List<Map<Integer, Integer>> statuses = new ArrayList<>();
+        Thread[] threads = new Thread[clients];
+        long start = System.nanoTime();
+        for(int client = 0; client < clients; ++client) {
+            final int id = client;
+            final Map<Integer, Integer> counts = new TreeMap<>();
+            statuses.add(counts);
+            threads[client] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    latencies[id] = sendUntil(boards[id], end, counts);
+                }
+            }, "load-client-" + client);
+            threads[client].start();
+        }
+        for(Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Map<Integer, Integer> merged = new TreeMap<>();
+        int total = 0;
+        for(int client = 0; client < clients; ++client) {
+            total += latencies[client].length;
+            for(Map.Entry<Integer, Integer> entry : statuses.get(client).entrySet()) {
+                merged.merge(entry.getKey(), entry.getValue(), Integer::sum);
+            }
+        }
+        long[] all = new long[total];
+        int filled = 0;
+        for(long[] clientLatencies : latencies) {
+            System.arraycopy(clientLatencies, 0, all, filled, clientLatencies.length);
+            filled += clientLatencies.length;
+        }
+        Arrays.sort(all);
+        return new Report(all, merged, elapsed);
+    }
+
+    /**
+     * Sends one client's requests, one after another, until the time is up
+     * @param bodies Boards the client sends in turn
+     * @param end When to stop, from System.nanoTime
+     * @param statuses Number of responses with each status code, where -1 counts failed requests
+     * @return Latency of each request in nanoseconds
+     */
+    private long[] sendUntil(String[] bodies, long end, Map<Integer, Integer> statuses) {
+        long[] latencies = new long[1024];
+        int count = 0;
+        for(int i = 0; System.nanoTime() < end; i = (i + 1) % bodies.length) {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .POST(HttpRequest.BodyPublishers.ofString(bodies[i])).build();
+            long start = System.nanoTime();
+            int status;
+            try {
+                status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch(IOException e) {
+                status = -1;
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if(count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - start;
+            statuses.merge(status, 1, Integer::sum);
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    /**
+     * Latencies and throughput of a run
+     */
+    public static final class Report {
+        /**
+         * Latency of every request in nanoseconds, shortest first
+         */
+        private final long[] latencies;
+
+        /**
+         * Number of responses with each status code, where -1 counts failed requests
+         */
+        private final Map<Integer, Integer> statuses;
+
+        /**
+         * Length of the run in nanoseconds
+         */
+        private final long elapsedNanos;
+
+        /**
+         * Creates a report
+         * @param latencies Latency of every request in nanoseconds, shortest first
+         * @param statuses Number of responses with each status code
+         * @param elapsedNanos Length of the run in nanoseconds
+         */
+        private Report(long[] latencies, Map<Integer, Integer> statuses, long elapsedNanos) {
+            this.latencies = latencies;
+            this.statuses = statuses;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Returns the latency that a share of the requests did not exceed
+         * @param fraction Share of the requests, such as 0.99
+         * @return The latency in milliseconds, or 0 if no requests were sent
+         */
+        public double percentileMillis(double fraction) {
+            if(latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(fraction * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(index, latencies.length - 1))] / 1e6;
+        }
+
+        /**
+         * Returns the number of requests answered per second, whatever the answer
+         * @return Requests per second
+         */
+        public double getRequestsPerSecond() {
+            return latencies.length / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d requests in %.1f s: %.1f requests/s, p50 %.2f ms, p99 %.2f ms,"
+                            + " max %.2f ms, status codes %s", latencies.length, elapsedNanos / 1e9,
+                    getRequestsPerSecond(), percentileMillis(0.5), percentileMillis(0.99),
+                    percentileMillis(1), statuses);
+        }
+    }
+}
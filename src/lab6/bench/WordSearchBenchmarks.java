@@ -0,0 +1,383 @@
+package lab6.bench;
+
+import lab6.GameBoard;
+import lab6.SortedArrayList;
+import lab6.guswilerib.Dawg;
+import lab6.guswilerib.Dictionary;
+import lab6.guswilerib.DictionaryImage;
+import lab6.guswilerib.EytzingerSet;
+import lab6.guswilerib.OffHeapWordPool;
+import lab6.guswilerib.Topology;
+import lab6.guswilerib.Trie;
+import lab6.guswilerib.WordFinder;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.TreeSet;
+
+/**
+ * Benchmarks for the dictionary backing collections and the word search.
+ * Covers loading the dictionary, opening it as a precompiled image, looking up
+ * words that are and are not in it, and full searches of the grid files and of random square boards in both
+ * 4-way and 8-way mode.<br />
+ * <br />
+ * Usage: <tt>java lab6.bench.WordSearchBenchmarks [-d dictionary] [-f filter]
+ * [-j results.json] [-s words] [-q]</tt><br />
+ * where the filter only runs benchmarks whose name or parameters contain it,
+ * -s also compares the loaders on a generated file with that many words and
+ * -q runs shorter iterations for a quick check.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public class WordSearchBenchmarks {
+    /**
+     * Number of words looked up by one contains operation
+     */
+    private static final int LOOKUPS = 1000;
+
+    /**
+     * Grid files searched, relative to the working directory
+     */
+    private static final String[] GRID_FILES = {"grid1.txt", "grid2.txt", "grid3.txt", "grid4.txt"};
+
+    /**
+     * Sizes of the random square boards searched
+     */
+    private static final int[] RANDOM_SIZES = {8, 16, 32};
+
+    /**
+     * Dictionary file to benchmark with
+     */
+    private final String dictionaryFile;
+
+    /**
+     * Only benchmarks whose name or parameters contain this are run
+     */
+    private final String filter;
+
+    /**
+     * Harness running the benchmarks
+     */
+    private final Harness harness;
+
+    /**
+     * Dictionary image compiled from the dictionary file, or null until it is first needed
+     */
+    private String imageFile;
+
+    /**
+     * Static entry point
+     * @param args Command line options, see the class description
+     * @throws Exception if a benchmark fails
+     */
+    public static void main(String[] args) throws Exception {
+        String dictionaryFile = "dictionary.txt";
+        String filter = "";
+        String json = null;
+        int syntheticWords = 0;
+        boolean quick = false;
+        for(int i = 0; i < args.length; i++) {
+            switch(args[i]) {
+                case "-d": dictionaryFile = args[++i]; break;
+                case "-f": filter = args[++i]; break;
+                case "-j": json = args[++i]; break;
+                case "-s": syntheticWords = Integer.parseInt(args[++i]); break;
+                case "-q": quick = true; break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        Harness harness = quick ? new Harness(1, 2, 100) : new Harness(5, 5, 1000);
+        WordSearchBenchmarks benchmarks = new WordSearchBenchmarks(dictionaryFile, filter, harness);
+        benchmarks.runDictionaryBenchmarks();
+        benchmarks.runLoaderBenchmarks(syntheticWords);
+        benchmarks.runSearchBenchmarks();
+        if(json != null) {
+            harness.writeJson(json);
+        }
+    }
+
+    /**
+     * Creates the benchmarks
+     * @param dictionaryFile dictionary file to benchmark with
+     * @param filter only benchmarks whose name or parameters contain this are run
+     * @param harness harness running the benchmarks
+     */
+    public WordSearchBenchmarks(String dictionaryFile, String filter, Harness harness) {
+        this.dictionaryFile = dictionaryFile;
+        this.filter = filter;
+        this.harness = harness;
+    }
+
+    /**
+     * Benchmarks loading the dictionary into each backing collection and
+     * looking up words that are and are not in it. Besides all hits and all
+     * misses, the lookups are run as a hit-heavy and a miss-heavy mix, and the
+     * misses are words with letters added, so they share a prefix with a word.
+     * @throws Exception if a benchmark fails
+     */
+    public void runDictionaryBenchmarks() throws Exception {
+        List<String> hits = sampleWords(LOOKUPS);
+        List<String> misses = new ArrayList<>(hits.size());
+        for(String hit : hits) {
+            misses.add(hit + "qx");
+        }
+        Map<String, List<String>> workloads = new LinkedHashMap<>();
+        workloads.put("hit", hits);
+        workloads.put("miss", misses);
+        workloads.put("hit-heavy", mix(hits, misses));
+        workloads.put("miss-heavy", mix(misses, hits));
+        for(final String backing : backings()) {
+            run("Dictionary.load", params("backing", backing), new Harness.Operation() {
+                @Override
+                public Object run() throws Exception {
+                    return loadDictionary(backing);
+                }
+            });
+            Dictionary dictionary = null;
+            for(Map.Entry<String, List<String>> workload : workloads.entrySet()) {
+                Map<String, String> params = params("backing", backing, "lookups", workload.getKey());
+                if(matches("Dictionary.contains", params)) {
+                    if(dictionary == null) {
+                        dictionary = loadDictionary(backing);
+                    }
+                    run("Dictionary.contains", params, lookups(dictionary, workload.getValue()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Compares the memory mapped loader with the Scanner loader on the
+     * dictionary file and, optionally, on a generated file of random
+     * dictionary words. The words go into an ArrayList so the time is mostly
+     * spent splitting the file.
+     * @param syntheticWords number of words in the generated file, or 0 for none
+     * @throws Exception if a benchmark fails
+     */
+    public void runLoaderBenchmarks(int syntheticWords) throws Exception {
+        Map<String, String> files = new LinkedHashMap<>();
+        files.put(dictionaryFile, dictionaryFile);
+        if(syntheticWords > 0) {
+            File synthetic = File.createTempFile("words", ".txt");
+            synthetic.deleteOnExit();
+            List<String> words = sampleWords(Integer.MAX_VALUE);
+            Random random = new Random(syntheticWords);
+            try(PrintWriter out = new PrintWriter(synthetic)) {
+                for(int i = 0; i < syntheticWords; i++) {
+                    out.println(words.get(random.nextInt(words.size())));
+                }
+            }
+            files.put(syntheticWords + " words", synthetic.getPath());
+        }
+        for(final Map.Entry<String, String> file : files.entrySet()) {
+            run("Dictionary.loader", params("file", file.getKey(), "loader", "mapped"), new Harness.Operation() {
+                @Override
+                public Object run() {
+                    return new Dictionary(new ArrayList<String>()).load(file.getValue());
+                }
+            });
+            run("Dictionary.loader", params("file", file.getKey(), "loader", "scanner"), new Harness.Operation() {
+                @Override
+                public Object run() {
+                    return new Dictionary(new ArrayList<String>()).loadWithScanner(file.getValue());
+                }
+            });
+        }
+    }
+
+    /**
+     * Benchmarks full searches of the grid files and random boards with every
+     * backing collection that can prune the search
+     * @throws Exception if a benchmark fails
+     */
+    public void runSearchBenchmarks() throws Exception {
+        Map<String, GameBoard> boards = new LinkedHashMap<>();
+        for(String gridFile : GRID_FILES) {
+            if(new File(gridFile).exists()) {
+                boards.put(gridFile, GameBoard.load(new File(gridFile)));
+            }
+        }
+        for(int size : RANDOM_SIZES) {
+            boards.put("random " + size + "x" + size, GameBoard.random(size, size, size));
+        }
+        for(String backing : new String[]{"Trie", "Dawg", "Image", "TreeSet", "EytzingerSet",
+                "OffHeapWordPool"}) {
+            final Dictionary dictionary = loadDictionary(backing);
+            for(Map.Entry<String, GameBoard> entry : boards.entrySet()) {
+                for(final Topology topology : new Topology[]{Topology.FOUR_WAY, Topology.EIGHT_WAY}) {
+                    final GameBoard board = entry.getValue();
+                    run("WordFinder.search", params("backing", backing, "board", entry.getKey(),
+                            "topology", topology.toString()), new Harness.Operation() {
+                        @Override
+                        public Object run() {
+                            WordFinder finder = new WordFinder(board.getPieces(), dictionary,
+                                    board.getRows(), board.getCols(), topology);
+                            finder.startSearching(1);
+                            return finder.getResults().size();
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads the dictionary file into a backing collection, or opens the
+     * dictionary image compiled from it
+     * @param backing name of the collection, or Image for the dictionary image
+     * @return the dictionary, with any lazily built structure already built
+     * @throws IOException if the dictionary image cannot be compiled or opened
+     */
+    private Dictionary loadDictionary(String backing) throws IOException {
+        Dictionary dictionary;
+        if(backing.equals("Image")) {
+            if(imageFile == null) {
+                File image = File.createTempFile("dictionary", ".img");
+                image.deleteOnExit();
+                DictionaryImage.compile(dictionaryFile, image.getPath());
+                imageFile = image.getPath();
+            }
+            dictionary = Dictionary.openImage(imageFile);
+        } else {
+            dictionary = new Dictionary(newCollection(backing));
+            dictionary.load(dictionaryFile);
+        }
+        dictionary.prepare();
+        return dictionary;
+    }
+
+    /**
+     * Runs a benchmark if it matches the filter
+     * @param benchmark name of the benchmark
+     * @param params parameters of the benchmark
+     * @param operation operation to benchmark
+     * @throws Exception if the benchmark fails
+     */
+    private void run(String benchmark, Map<String, String> params, Harness.Operation operation) throws Exception {
+        if(matches(benchmark, params)) {
+            harness.run(benchmark, params, operation);
+        }
+    }
+
+    /**
+     * Checks if a benchmark matches the filter
+     * @param benchmark name of the benchmark
+     * @param params parameters of the benchmark
+     * @return true if the benchmark should be run
+     */
+    private boolean matches(String benchmark, Map<String, String> params) {
+        return (benchmark + " " + params).contains(filter);
+    }
+
+    /**
+     * Creates an operation that looks up a list of words
+     * @param dictionary dictionary to look the words up in
+     * @param words words to look up
+     * @return the operation, which returns the number of words found
+     */
+    private static Harness.Operation lookups(final Dictionary dictionary, final List<String> words) {
+        return new Harness.Operation() {
+            @Override
+            public Object run() {
+                int found = 0;
+                for(String word : words) {
+                    if(dictionary.contains(word)) {
+                        found++;
+                    }
+                }
+                return found;
+            }
+        };
+    }
+
+    /**
+     * Mixes two lists of words, mostly taking words from the first
+     * @param majority list most words are taken from
+     * @param minority list every tenth word is taken from
+     * @return list as long as the majority list
+     */
+    private static List<String> mix(List<String> majority, List<String> minority) {
+        List<String> mixed = new ArrayList<>(majority.size());
+        for(int i = 0; i < majority.size(); i++) {
+            mixed.add(i % 10 == 0 ? minority.get(i % minority.size()) : majority.get(i));
+        }
+        return mixed;
+    }
+
+    /**
+     * Picks words spread evenly through the dictionary file
+     * @param count number of words to pick
+     * @return count words from the dictionary, or all of them if it has fewer
+     * @throws FileNotFoundException if the dictionary file cannot be found
+     */
+    private List<String> sampleWords(int count) throws FileNotFoundException {
+        List<String> words = new ArrayList<>();
+        try(Scanner scanner = new Scanner(new File(dictionaryFile))) {
+            while(scanner.hasNext()) {
+                words.add(scanner.next());
+            }
+        }
+        if(count >= words.size()) {
+            return words;
+        }
+        List<String> sample = new ArrayList<>(count);
+        for(int i = 0; i < count; i++) {
+            sample.add(words.get((int) ((long) i * words.size() / count)));
+        }
+        return sample;
+    }
+
+    /**
+     * Names of the backing collections that can be benchmarked
+     * @return the names accepted by loadDictionary
+     */
+    private static String[] backings() {
+        return new String[]{"ArrayList", "LinkedList", "SortedArrayList", "TreeSet", "HashSet", "EytzingerSet",
+                "OffHeapWordPool", "Trie", "Dawg", "Image"};
+    }
+
+    /**
+     * Creates an empty backing collection
+     * @param backing name of the collection
+     * @return the collection
+     */
+    private static Collection<String> newCollection(String backing) {
+        switch(backing) {
+            case "ArrayList": return new ArrayList<>();
+            case "LinkedList": return new LinkedList<>();
+            case "SortedArrayList": return new SortedArrayList<>();
+            case "TreeSet": return new TreeSet<>();
+            case "HashSet": return new HashSet<>();
+            case "EytzingerSet": return new EytzingerSet();
+            case "OffHeapWordPool": return new OffHeapWordPool();
+            case "Trie": return new Trie();
+            case "Dawg": return new Dawg();
+            default: throw new IllegalArgumentException("Unknown backing collection: " + backing);
+        }
+    }
+
+    /**
+     * Builds an ordered map of benchmark parameters
+     * @param keysAndValues alternating parameter names and values
+     * @return the parameters
+     */
+    private static Map<String, String> params(String... keysAndValues) {
+        Map<String, String> params = new LinkedHashMap<>();
+        for(int i = 0; i + 1 < keysAndValues.length; i += 2) {
+            params.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return params;
+    }
+}
@@ -0,0 +1,301 @@
+package lab6.guswilerib;
+
+import lab6.GamePiece;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Narrows a dictionary down to the words that could be on one game board, so
+ * the board is searched against a much smaller dictionary. A word is kept
+ * only if each pair of letters next to each other in the word is found on two
+ * game pieces next to each other on the board, and the board has as many of
+ * each of its letters as the word needs. Every word on the board passes both
+ * tests, so the search finds the same words with either dictionary.<br />
+ * <br />
+ * A filter takes a copy of the dictionary's words once and tests them against
+ * each board it is given, on slices of the words in parallel. The words kept
+ * go into a new Trie. Filtering pays off most on small boards, which only a
+ * few hundred words pass, and with dictionaries that cannot rule out prefixes
+ * or look words up only by binary search. A Trie already stops at the first
+ * letter no word continues with, so a large board searched with one gains
+ * little, and when most of the words pass the filter the dictionary is handed
+ * back as it is.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public class BoardFilter {
+    /**
+     * Words tested by one fork-join task at most
+     */
+    private static final int WORDS_PER_TASK = 4096;
+
+    /**
+     * Letters below this are counted in an array rather than a map
+     */
+    private static final int ASCII = 128;
+
+    /**
+     * Share of the words that must be dropped for a filtered dictionary to be built
+     */
+    private static final double MIN_DROPPED = 0.5;
+
+    /**
+     * Dictionary the words are taken from
+     */
+    private final Dictionary dictionary;
+
+    /**
+     * Copy of the words in the dictionary, as of wordsVersion
+     */
+    private String[] words;
+
+    /**
+     * Version of the dictionary the words were copied from
+     */
+    private long wordsVersion;
+
+    /**
+     * Creates a filter for a dictionary
+     * @param dictionary A collection of correctly spelled words
+     */
+    public BoardFilter(Dictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Creates a dictionary holding only the words that could be on a game
+     * board. The words of the dictionary are copied the first time and again
+     * whenever it has changed since.
+     * @param gameBoard The game board to be searched
+     * @param rows Number of rows in game board
+     * @param cols Number of columns in game board
+     * @param topology Moves allowed between the game pieces of a word
+     * @param parallelism Number of worker threads to test the words with
+     * @return A Trie backed dictionary of the words that passed, or the
+     *         dictionary itself if fewer than half of its words were dropped
+     */
+    public Dictionary filter(List<GamePiece<Character>> gameBoard, int rows, int cols, Topology topology,
+                             int parallelism) {
+        if(parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        String[] words = words();
+        BoardLetters board = new BoardLetters(gameBoard, rows, cols, topology);
+        List<String> kept;
+        if(parallelism == 1 || words.length <= WORDS_PER_TASK) {
+            kept = board.keep(words, 0, words.length);
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                kept = pool.invoke(new FilterTask(board, words, 0, words.length));
+            } finally {
+                pool.shutdown();
+            }
+        }
+        if(kept.size() > words.length * (1 - MIN_DROPPED)) {
+            return dictionary;
+        }
+        Dictionary filtered = new Dictionary(new Trie());
+        filtered.addWords(kept);
+        return filtered;
+    }
+
+    /**
+     * Returns the copy of the dictionary's words, copying them again if the
+     * dictionary has changed
+     * @return Every word in the dictionary
+     */
+    private synchronized String[] words() {
+        long version = dictionary.getVersion();
+        if(words == null || wordsVersion != version) {
+            words = dictionary.getWords().toArray(new String[0]);
+            wordsVersion = version;
+        }
+        return words;
+    }
+
+    /**
+     * The letters on one game board and which letters are next to each other
+     */
+    private static final class BoardLetters {
+        /**
+         * Number of game pieces holding each lower case letter below ASCII
+         */
+        private final int[] asciiCounts = new int[ASCII];
+
+        /**
+         * Number of game pieces holding each lower case letter from ASCII up
+         */
+        private final Map<Character, Integer> counts = new HashMap<>();
+
+        /**
+         * Whether a word may step from each letter below ASCII to each other letter below ASCII
+         */
+        private final boolean[] asciiPairs = new boolean[ASCII * ASCII];
+
+        /**
+         * Pairs of letters a word may step between, where either is from ASCII up,
+         * each as the first letter shifted 16 bits left plus the second letter
+         */
+        private final Set<Integer> pairs = new HashSet<>();
+
+        /**
+         * Longest word that fits on the board
+         */
+        private final int maxLength;
+
+        /**
+         * Counts the letters and the neighboring pairs of letters on a game board
+         * @param gameBoard The game board to be searched
+         * @param rows Number of rows in game board
+         * @param cols Number of columns in game board
+         * @param topology Moves allowed between the game pieces of a word
+         */
+        private BoardLetters(List<GamePiece<Character>> gameBoard, int rows, int cols, Topology topology) {
+            char[] letters = new char[gameBoard.size()];
+            for(int i = 0; i < letters.length; ++i) {
+                letters[i] = Character.toLowerCase(gameBoard.get(i).getElement());
+                if(letters[i] < ASCII) {
+                    ++asciiCounts[letters[i]];
+                } else {
+                    counts.merge(letters[i], 1, Integer::sum);
+                }
+            }
+            int[][] neighbors = topology.neighbors(rows, cols);
+            for(int cell = 0; cell < letters.length; ++cell) {
+                for(int neighbor : neighbors[cell]) {
+                    char first = letters[cell];
+                    char second = letters[neighbor];
+                    if(first < ASCII && second < ASCII) {
+                        asciiPairs[first * ASCII + second] = true;
+                    } else {
+                        pairs.add(first << 16 | second);
+                    }
+                }
+            }
+            maxLength = Math.min(WordFinder.MAX_WORD_LENGTH, letters.length);
+        }
+
+        /**
+         * Checks if a word could be on the board
+         * @param word Word to be checked
+         * @return <tt>false</tt> if the word is too short or long to be found, needs
+         *         more of a letter than the board has, or steps between two letters
+         *         that are never next to each other on the board
+         */
+        private boolean accepts(String word) {
+            int length = word.length();
+            if(length < WordFinder.MIN_WORD_LENGTH || length > maxLength) {
+                return false;
+            }
+            for(int i = 1; i < length; ++i) {
+                char first = word.charAt(i - 1);
+                char second = word.charAt(i);
+                if(first < ASCII && second < ASCII ? !asciiPairs[first * ASCII + second]
+                        : !pairs.contains(first << 16 | second)) {
+                    return false;
+                }
+            }
+            // Words are short, so counting each letter's copies by scanning beats allocating counters
+            for(int i = 0; i < length; ++i) {
+                char letter = word.charAt(i);
+                int needed = 0;
+                for(int j = 0; j < length; ++j) {
+                    if(word.charAt(j) == letter) {
+                        ++needed;
+                    }
+                }
+                Integer available = letter < ASCII ? null : counts.get(letter);
+                if(needed > (letter < ASCII ? asciiCounts[letter] : available == null ? 0 : available)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Tests a slice of the words
+         * @param words Every word in the dictionary
+         * @param from Index of the first word to test
+         * @param to Index one past the last word to test
+         * @return The words that passed, in dictionary order
+         */
+        private List<String> keep(String[] words, int from, int to) {
+            List<String> kept = new ArrayList<>();
+            for(int i = from; i < to; ++i) {
+                if(accepts(words[i])) {
+                    kept.add(words[i]);
+                }
+            }
+            return kept;
+        }
+    }
+
+    /**
+     * Fork-join task that tests a slice of the words, splitting it in half
+     * until each task has at most WORDS_PER_TASK words
+     */
+    @SuppressWarnings("serial")
+    private static final class FilterTask extends RecursiveTask<List<String>> {
+        /**
+         * The game board the words are tested against
+         */
+        private final BoardLetters board;
+
+        /**
+         * Every word in the dictionary
+         */
+        private final String[] words;
+
+        /**
+         * Index of the first word to test
+         */
+        private final int from;
+
+        /**
+         * Index one past the last word to test
+         */
+        private final int to;
+
+        /**
+         * Creates a task for the words from (inclusive) to to (exclusive)
+         * @param board The game board the words are tested against
+         * @param words Every word in the dictionary
+         * @param from Index of the first word
+         * @param to Index one past the last word
+         */
+        private FilterTask(BoardLetters board, String[] words, int from, int to) {
+            this.board = board;
+            this.words = words;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Tests the words
+         * @return The words that passed, in dictionary order
+         */
+        @Override
+        protected List<String> compute() {
+            List<String> kept;
+            if(to - from <= WORDS_PER_TASK) {
+                kept = board.keep(words, from, to);
+            } else {
+                int middle = (from + to) >>> 1;
+                FilterTask right = new FilterTask(board, words, middle, to);
+                right.fork();
+                kept = new FilterTask(board, words, from, middle).compute();
+                kept.addAll(right.join());
+            }
+            return kept;
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package lab6.guswilerib;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimized directed acyclic word graph that can be used as the collection
+ * behind a dictionary. Unlike a trie, words that end the same way share the
+ * nodes for their endings as well as their beginnings, so the whole word list
+ * fits in a few small arrays.<br />
+ * <br />
+ * Words are collected in a trie as they are added. The first time the graph
+ * is read, the trie is minimized into the arrays and thrown away. Adding
+ * words after that rebuilds the graph the next time it is read.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public class Dawg extends AbstractCollection<String> implements WordGraph {
+    /**
+     * Index of the first outgoing edge of each node. The edges of node n run
+     * from firstEdge[n] up to (but not including) firstEdge[n + 1].
+     */
+    private int[] firstEdge;
+
+    /**
+     * Letter of each edge, sorted alphabetically within a node
+     */
+    private char[] edgeLabel;
+
+    /**
+     * Node each edge leads to
+     */
+    private int[] edgeTarget;
+
+    /**
+     * Whether the path to each node spells a word
+     */
+    private boolean[] word;
+
+    /**
+     * Number of words at or below each node, counting every path through shared nodes
+     */
+    private int[] wordCount;
+
+    /**
+     * Letters after each node in the longest word through it
+     */
+    private int[] height;
+
+    /**
+     * Index of the node representing the empty prefix
+     */
+    private int root;
+
+    /**
+     * Number of words in the graph
+     */
+    private int size;
+
+    /**
+     * Words added since the graph was last built, or null if there are none.
+     * Volatile so that once a thread sees it cleared it also sees the built arrays.
+     */
+    private volatile Trie pending;
+
+    /**
+     * Creates an empty graph
+     */
+    public Dawg(){
+        clear();
+    }
+
+    @Override
+    public int root(){
+        build();
+        return root;
+    }
+
+    @Override
+    public int child(int node, char letter){
+        for(int edge = firstEdge[node]; edge < firstEdge[node + 1] && edgeLabel[edge] <= letter; edge++){
+            if(edgeLabel[edge] == letter){
+                return edgeTarget[edge];
+            }
+        }
+        return NO_NODE;
+    }
+
+    @Override
+    public boolean isWord(int node){
+        return word[node];
+    }
+
+    @Override
+    public int height(int node){
+        return height[node];
+    }
+
+    @Override
+    public int wordId(char[] letters, int length){
+        int node = root();
+        int id = 0;
+        for(int i = 0; i < length; i++){
+            if(word[node]){
+                id++;
+            }
+            int edge = firstEdge[node];
+            while(edge < firstEdge[node + 1] && edgeLabel[edge] < letters[i]){
+                id += wordCount[edgeTarget[edge]];
+                edge++;
+            }
+            if(edge == firstEdge[node + 1] || edgeLabel[edge] != letters[i]){
+                return -1;
+            }
+            node = edgeTarget[edge];
+        }
+        return word[node] ? id : -1;
+    }
+
+    @Override
+    public int wordsBefore(int node, char letter){
+        int id = word[node] ? 1 : 0;
+        for(int edge = firstEdge[node]; edge < firstEdge[node + 1] && edgeLabel[edge] < letter; edge++){
+            id += wordCount[edgeTarget[edge]];
+        }
+        return id;
+    }
+
+    /**
+     * Adds a word to the graph
+     * @param value word to be added
+     * @return true if the word was not already in the graph
+     */
+    @Override
+    public boolean add(String value){
+        if(pending == null){
+            Trie words = new Trie();
+            words.addAll(this);
+            pending = words;
+        }
+        return pending.add(value);
+    }
+
+    /**
+     * Removes a word from the graph. Like add, this goes through the pending
+     * trie, so the whole graph is minimized again on the next lookup.
+     * @param target word to be removed
+     * @return true if the word was in the graph
+     */
+    @Override
+    public boolean remove(Object target){
+        if(pending == null){
+            if(!contains(target)){
+                return false;
+            }
+            Trie words = new Trie();
+            words.addAll(this);
+            pending = words;
+        }
+        return pending.remove(target);
+    }
+
+    /**
+     * Checks if a word is in the graph
+     * @param target word to be searched for
+     * @return true if the word was found
+     */
+    @Override
+    public boolean contains(Object target){
+        if(!(target instanceof CharSequence)){
+            return false;
+        }
+        CharSequence letters = (CharSequence) target;
+        int node = root();
+        for(int i = 0; i < letters.length() && node != NO_NODE; i++){
+            node = child(node, letters.charAt(i));
+        }
+        return node != NO_NODE && word[node];
+    }
+
+    /**
+     * Returns the words in the graph in alphabetical order. The iterator walks a
+     * copy of the words, so the graph may change while it is in use, and its
+     * remove takes the word out of the graph.
+     * @return iterator over the words
+     */
+    @Override
+    public Iterator<String> iterator(){
+        List<String> words = new ArrayList<>(size());
+        collect(root(), new StringBuilder(), words);
+        return new SnapshotIterator(this, words);
+    }
+
+    /**
+     * Removes each of the words given from the graph
+     * @param words words to be removed
+     * @return true if any of the words was in the graph
+     */
+    @Override
+    public boolean removeAll(Collection<?> words){
+        boolean removed = false;
+        for(Object target : words){
+            removed |= remove(target);
+        }
+        return removed;
+    }
+
+    /**
+     * Removes every word from the graph that is not among the words given
+     * @param words words to be kept
+     * @return true if any word was removed
+     */
+    @Override
+    public boolean retainAll(Collection<?> words){
+        boolean removed = false;
+        for(String target : this){
+            if(!words.contains(target)){
+                removed |= remove(target);
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public int size(){
+        build();
+        return size;
+    }
+
+    /**
+     * Removes every word from the graph
+     */
+    @Override
+    public void clear(){
+        firstEdge = new int[]{0, 0};
+        edgeLabel = new char[0];
+        edgeTarget = new int[0];
+        word = new boolean[1];
+        wordCount = new int[1];
+        height = new int[1];
+        root = 0;
+        size = 0;
+        pending = null;
+    }
+
+    /**
+     * Returns the number of distinct nodes left after minimization
+     * @return number of nodes
+     */
+    public int nodeCount(){
+        build();
+        return word.length;
+    }
+
+    /**
+     * Returns the number of edges in the graph
+     * @return number of edges
+     */
+    int edgeCount(){
+        build();
+        return edgeLabel.length;
+    }
+
+    /**
+     * Returns the first outgoing edge of a node. The edges of the node end
+     * where the edges of the next node begin.
+     * @param node node to look at, or the node count for the end of the last node's edges
+     * @return index of the first edge
+     */
+    int firstEdge(int node){
+        return firstEdge[node];
+    }
+
+    /**
+     * Returns the letter of an edge
+     * @param edge edge to look at
+     * @return letter of the edge
+     */
+    char edgeLabel(int edge){
+        return edgeLabel[edge];
+    }
+
+    /**
+     * Returns the node an edge leads to
+     * @param edge edge to look at
+     * @return index of the node
+     */
+    int edgeTarget(int edge){
+        return edgeTarget[edge];
+    }
+
+    /**
+     * Minimizes the pending trie into the graph arrays if words have been
+     * added since the last build. Trie nodes are visited children first and
+     * each one is replaced by an existing graph node when one with the same
+     * word flag and the same labeled edges to the same targets already exists.
+     * Safe to call from several searching threads at once.
+     */
+    void build(){
+        if(pending != null){
+            synchronized(this){
+                if(pending != null){
+                    minimizePending();
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the graph arrays with a minimized copy of the pending trie
+     */
+    private void minimizePending(){
+        int trieNodes = pending.nodeCount();
+        int edges = Math.max(trieNodes - 1, 0);
+        firstEdge = new int[trieNodes + 1];
+        edgeLabel = new char[edges];
+        edgeTarget = new int[edges];
+        word = new boolean[trieNodes];
+
+        int[] counts = new int[2];
+        root = minimize(pending, pending.root(), new HashMap<String, Integer>(), counts);
+        size = pending.size();
+
+        int nodes = counts[0];
+        firstEdge = Arrays.copyOf(firstEdge, nodes + 1);
+        edgeLabel = Arrays.copyOf(edgeLabel, counts[1]);
+        edgeTarget = Arrays.copyOf(edgeTarget, counts[1]);
+        word = Arrays.copyOf(word, nodes);
+        // Nodes are numbered children first, so each node's targets are counted before it
+        wordCount = new int[nodes];
+        height = new int[nodes];
+        for(int node = 0; node < nodes; node++){
+            wordCount[node] = word[node] ? 1 : 0;
+            for(int edge = firstEdge[node]; edge < firstEdge[node + 1]; edge++){
+                wordCount[node] += wordCount[edgeTarget[edge]];
+                height[node] = Math.max(height[node], height[edgeTarget[edge]] + 1);
+            }
+        }
+        pending = null;
+    }
+
+    /**
+     * Replaces a trie node and everything below it with graph nodes
+     * @param trie trie being minimized
+     * @param trieNode node of the trie to replace
+     * @param registry graph nodes created so far, keyed by their signature
+     * @param counts number of graph nodes and edges created so far
+     * @return index of the graph node equivalent to the trie node
+     */
+    private int minimize(Trie trie, int trieNode, Map<String, Integer> registry, int[] counts){
+        StringBuilder signature = new StringBuilder();
+        signature.append(trie.isWord(trieNode) ? '1' : '0');
+        for(int child = trie.firstChild(trieNode); child != NO_NODE; child = trie.nextSibling(child)){
+            int target = minimize(trie, child, registry, counts);
+            signature.append(trie.label(child))
+                    .append((char) (target >>> 16))
+                    .append((char) target);
+        }
+        String key = signature.toString();
+        Integer existing = registry.get(key);
+        if(existing != null){
+            return existing;
+        }
+
+        int node = counts[0]++;
+        word[node] = trie.isWord(trieNode);
+        firstEdge[node] = counts[1];
+        for(int i = 1; i < key.length(); i += 3){
+            edgeLabel[counts[1]] = key.charAt(i);
+            edgeTarget[counts[1]] = (key.charAt(i + 1) << 16) | key.charAt(i + 2);
+            counts[1]++;
+        }
+        firstEdge[node + 1] = counts[1];
+        registry.put(key, node);
+        return node;
+    }
+
+    /**
+     * Adds every word below a node to a list, in alphabetical order
+     * @param node node to start from
+     * @param prefix letters on the path to the node
+     * @param words list the words are added to
+     */
+    private void collect(int node, StringBuilder prefix, List<String> words){
+        if(word[node]){
+            words.add(prefix.toString());
+        }
+        for(int edge = firstEdge[node]; edge < firstEdge[node + 1]; edge++){
+            prefix.append(edgeLabel[edge]);
+            collect(edgeTarget[edge], prefix, words);
+            prefix.setLength(prefix.length() - 1);
+        }
+    }
+}
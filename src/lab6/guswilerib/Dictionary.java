@@ -8,10 +8,26 @@
 
 package lab6.guswilerib;
 
+import lab6.SortedArrayList;
+
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Collection of word strings that is to be used as a dictionary
@@ -20,8 +36,24 @@ import java.util.Scanner;
  * @version 4/11/16
  */
 public class Dictionary {
+    /**
+     * Last version number handed out to any dictionary
+     */
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
     private final Collection<String> collection;
 
+    /**
+     * version number of the words in the dictionary, unique among every dictionary in the JVM
+     */
+    private volatile long version = VERSIONS.incrementAndGet();
+
+    /**
+     * number of words starting with each pair of letters, counted for the version of the words it holds,
+     * or null until countStarts is first called
+     */
+    private volatile StartCounts startCounts;
+
     /**
      * creates a new dictionary with an empty collection
      * @param collection collection to be used in the dictionary. If it is not empty it will be cleared.
@@ -36,28 +68,143 @@ public class Dictionary {
     }
 
     /**
-     * loads a file into the dictionary
+     * creates a dictionary backed by a precompiled image, see DictionaryImage
+     * @param image opened dictionary image
+     */
+    private Dictionary(DictionaryImage image){
+        this.collection = image;
+    }
+
+    /**
+     * opens a dictionary image compiled by DictionaryImage. The image is memory mapped read-only, so
+     * nothing is read into the heap per word and the dictionary cannot be loaded into or cleared.
+     * @param fileName name of the image file
+     * @return dictionary holding the words in the image
+     * @throws IOException if the file cannot be read or is not a valid dictionary image
+     */
+    public static Dictionary openImage(String fileName) throws IOException {
+        DictionaryLoadEvent event = new DictionaryLoadEvent();
+        event.begin();
+        Dictionary dictionary = new Dictionary(DictionaryImage.open(fileName));
+        dictionary.commitLoad(event, fileName, "image", dictionary.size());
+        return dictionary;
+    }
+
+    /**
+     * loads a file into the dictionary. The file is memory mapped and split into words by scanning its
+     * bytes, in parallel for large files, and the words are then added in bulk. Words are separated by
+     * whitespace, just as they are by loadWithScanner, which is used instead when the platform character
+     * set cannot be scanned byte by byte. A SortedArrayList is loaded in its bulk loading mode, which
+     * sorts any words that arrive out of order once at the end and drops any repeated words.
      * @param fileName name of file to be loaded into the dictionary
      * @return time taken to add the words to the dictionary
      */
     public long load(String fileName){
+        Charset charset = Charset.defaultCharset();
+        if(!MappedWordReader.supports(charset)){
+            return loadWithScanner(fileName);
+        }
+        long nanoStart = 0;
+        long nanoEnd = 0;
+        int count = 0;
+        DictionaryLoadEvent event = new DictionaryLoadEvent();
+        event.begin();
+
+        try(FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)){
+            nanoStart = System.nanoTime();
+            beginBulkLoad();
+            try{
+                for(List<String> words : MappedWordReader.read(channel, charset)){
+                    collection.addAll(words);
+                    count += words.size();
+                }
+            } finally {
+                endBulkLoad();
+            }
+            nanoEnd = System.nanoTime();
+        } catch (NoSuchFileException e){
+            System.err.println("The file " + fileName + " could not be found.");
+        } catch (IOException e){
+            System.err.println("The file " + fileName + " could not be read: " + e.getMessage());
+        }
+        changed();
+        commitLoad(event, fileName, "mapped", count);
+
+        return nanoEnd - nanoStart;
+    }
+
+    /**
+     * loads a file into the dictionary one word at a time using a Scanner
+     * @param fileName name of file to be loaded into the dictionary
+     * @return time taken to add the words to the dictionary
+     */
+    public long loadWithScanner(String fileName){
         long nanoStart = 0;
         long nanoEnd = 0;
+        int count = 0;
+        DictionaryLoadEvent event = new DictionaryLoadEvent();
+        event.begin();
 
         File file = new File(fileName);
         try(Scanner fileScan = new Scanner(file)){
             nanoStart = System.nanoTime();
-            while(fileScan.hasNext()){
-                collection.add(fileScan.next());
+            beginBulkLoad();
+            try{
+                while(fileScan.hasNext()){
+                    collection.add(fileScan.next());
+                    count++;
+                }
+            } finally {
+                endBulkLoad();
             }
             nanoEnd = System.nanoTime();
         } catch (FileNotFoundException e){
             System.err.println("The file " + fileName + " could not be found.");
         }
+        changed();
+        commitLoad(event, fileName, "scanner", count);
 
         return nanoEnd - nanoStart;
     }
 
+    /**
+     * puts a SortedArrayList collection in bulk loading mode, so words are appended rather than inserted
+     */
+    private void beginBulkLoad(){
+        if(collection instanceof SortedArrayList){
+            ((SortedArrayList<?>) collection).beginBulkLoad();
+        }
+    }
+
+    /**
+     * sorts and merges the words appended to a SortedArrayList collection since beginBulkLoad, even if
+     * the load failed, so the collection can be read again
+     */
+    private void endBulkLoad(){
+        if(collection instanceof SortedArrayList){
+            ((SortedArrayList<?>) collection).endBulkLoad();
+        }
+    }
+
+    /**
+     * fills in and commits a flight recorder event for a load, if it is being recorded
+     * @param event event begun before the load
+     * @param fileName name of the file loaded
+     * @param loader how the file was read
+     * @param count number of words read
+     */
+    private void commitLoad(DictionaryLoadEvent event, String fileName, String loader, int count){
+        event.end();
+        if(event.shouldCommit()){
+            event.fileName = fileName;
+            event.loader = loader;
+            event.backing = collection.getClass().getSimpleName();
+            event.words = count;
+            event.fileSize = new File(fileName).length();
+            event.commit();
+        }
+    }
+
     /**
      * checks if the specified word is in the dictionary collection
      * @param target word to be searched for
@@ -67,12 +214,287 @@ public class Dictionary {
         return collection.contains(target);
     }
 
+    /**
+     * checks if the letters are a word in the dictionary. Word graphs and the sorted collections compare
+     * the letters where they are, so a search can look up the word it is building without copying it into
+     * a string; other collections are asked about a copy.
+     * @param letters letters of the word to be searched for
+     * @return returns a boolean representing if the word was found or not
+     */
+    @SuppressWarnings("unchecked")
+    boolean contains(CharSequence letters){
+        boolean found;
+        if(collection instanceof WordGraph || collection instanceof OffHeapWordPool
+                || collection instanceof EytzingerSet){
+            found = collection.contains(letters);
+        } else if(collection instanceof SortedArrayList){
+            List<String> list = (List<String>) collection;
+            int index = lowerBound(list, letters);
+            found = index < list.size() && CharSequence.compare(list.get(index), letters) == 0;
+        } else {
+            found = collection.contains(letters.toString());
+        }
+        return found;
+    }
+
+    /**
+     * checks if any word in the dictionary starts with the specified prefix. Collections that
+     * cannot answer this quickly (anything that is not a word graph or kept in sorted order) always
+     * report true so that a search relying on this never skips a word.
+     * @param prefix letters the word must start with
+     * @return returns false only if no word in the dictionary starts with the prefix
+     */
+    public boolean hasPrefix(String prefix){
+        return hasPrefix((CharSequence) prefix);
+    }
+
+    /**
+     * checks if any word in the dictionary starts with the letters, as hasPrefix(String) does. Only a
+     * NavigableSet has to be asked about a copy of the letters; every other collection compares them
+     * where they are.
+     * @param prefix letters the word must start with
+     * @return returns false only if no word in the dictionary starts with the prefix
+     */
+    @SuppressWarnings("unchecked")
+    boolean hasPrefix(CharSequence prefix){
+        boolean found = true;
+        if(collection instanceof WordGraph){
+            WordGraph graph = (WordGraph) collection;
+            int node = graph.root();
+            for(int i = 0; i < prefix.length() && node != WordGraph.NO_NODE; i++){
+                node = graph.child(node, prefix.charAt(i));
+            }
+            found = node != WordGraph.NO_NODE;
+        } else if(collection instanceof NavigableSet){
+            String ceiling = ((NavigableSet<String>) collection).ceiling(prefix.toString());
+            found = ceiling != null && startsWith(ceiling, prefix);
+        } else if(collection instanceof OffHeapWordPool){
+            found = ((OffHeapWordPool) collection).hasPrefix(prefix);
+        } else if(collection instanceof EytzingerSet){
+            String ceiling = ((EytzingerSet) collection).ceiling(prefix);
+            found = ceiling != null && startsWith(ceiling, prefix);
+        } else if(collection instanceof SortedArrayList){
+            List<String> list = (List<String>) collection;
+            int index = lowerBound(list, prefix);
+            found = index < list.size() && startsWith(list.get(index), prefix);
+        }
+        return found;
+    }
+
+    /**
+     * finds the first word in a sorted list that is not before the given letters
+     * @param list words in alphabetical order
+     * @param letters letters to look for
+     * @return index of the word, or the size of the list if every word comes before the letters
+     */
+    private static int lowerBound(List<String> list, CharSequence letters){
+        int low = 0;
+        int high = list.size();
+        while(low < high){
+            int middle = (low + high) >>> 1;
+            if(CharSequence.compare(list.get(middle), letters) < 0){
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * checks if a word starts with the given letters
+     * @param word word to be checked
+     * @param prefix letters the word must start with
+     * @return true if the word is at least as long as the prefix and starts with its letters
+     */
+    private static boolean startsWith(String word, CharSequence prefix){
+        if(word.length() < prefix.length()){
+            return false;
+        }
+        for(int i = 0; i < prefix.length(); i++){
+            if(word.charAt(i) != prefix.charAt(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * builds whatever the backing collection puts off until it is first read: the minimized graph of a
+     * Dawg, or the sorted layout of an EytzingerSet or OffHeapWordPool. Calling this after loading means
+     * the first search does not pay for the build, and threads that share the dictionary only ever read it.
+     */
+    public void prepare(){
+        if(collection instanceof Dawg){
+            ((Dawg) collection).build();
+        } else if(collection instanceof EytzingerSet){
+            ((EytzingerSet) collection).layOut();
+        } else if(collection instanceof OffHeapWordPool){
+            ((OffHeapWordPool) collection).pack();
+        }
+    }
+
+    /**
+     * checks if hasPrefix can rule out prefixes, which also means the words are kept in alphabetical order
+     * @return true if the backing collection is a word graph or kept sorted
+     */
+    boolean supportsPrefixes(){
+        return collection instanceof WordGraph || collection instanceof NavigableSet
+                || collection instanceof EytzingerSet || collection instanceof OffHeapWordPool
+                || collection instanceof SortedArrayList;
+    }
+
+    /**
+     * checks if looking a word up takes about the same time however many words are in the dictionary
+     * @return true if contains does not have to scan the whole collection
+     */
+    boolean hasFastLookup(){
+        return supportsPrefixes() || collection instanceof Set;
+    }
+
+    /**
+     * returns a number that changes whenever words are loaded into, added to or removed from the
+     * dictionary. No two dictionaries ever have the same version, so the version tells apart both the
+     * dictionary and the words it held, for instance when caching the words found with it.
+     * @return the version of the words in the dictionary
+     */
+    public long getVersion(){
+        return version;
+    }
+
+    /**
+     * returns the number of words in the dictionary that start with two given letters. The words are
+     * counted the first time this is called and again after the dictionary changes, which takes one pass
+     * over the words.
+     * @param first first letter of the words
+     * @param second second letter of the words
+     * @return number of words starting with the two letters
+     */
+    int countStarts(char first, char second){
+        StartCounts counts = startCounts;
+        long current = version;
+        if(counts == null || counts.version != current){
+            Map<Integer, Integer> pairs = new HashMap<>();
+            for(String word : collection){
+                if(word.length() >= 2){
+                    pairs.merge(word.charAt(0) << 16 | word.charAt(1), 1, Integer::sum);
+                }
+            }
+            counts = new StartCounts(current, pairs);
+            startCounts = counts;
+        }
+        Integer count = counts.pairs.get(first << 16 | second);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * marks the words in the dictionary as changed
+     */
+    private void changed(){
+        version = VERSIONS.incrementAndGet();
+    }
+
+    /**
+     * returns the number of words in the dictionary
+     * @return number of words
+     */
+    public int size(){
+        return collection.size();
+    }
+
+    /**
+     * returns the words in the dictionary. The words come back in alphabetical order when the backing
+     * collection keeps them sorted.
+     * @return read-only view of the words
+     */
+    public Collection<String> getWords(){
+        return Collections.unmodifiableCollection(collection);
+    }
+
+    /**
+     * returns the collection behind the dictionary as a word graph so it can be walked one letter at a time
+     * @return the word graph, or null if the dictionary is not backed by one
+     */
+    WordGraph getWordGraph(){
+        return collection instanceof WordGraph ? (WordGraph) collection : null;
+    }
+
+    /**
+     * adds words to the dictionary one at a time, without reloading it. For a Trie or a sorted collection
+     * this costs about the same per word whatever the size of the dictionary, while a Dawg is minimized
+     * again as a whole on its next lookup. A word already in the dictionary is not added again, even when
+     * the collection is a list that would keep a second copy. The dictionary must not change while it is
+     * being searched.
+     * @param words words to be added
+     * @return the words that were not already in the dictionary, in the order given
+     * @throws UnsupportedOperationException if the backing collection cannot be added to, as for an image
+     */
+    public List<String> addWords(Collection<String> words){
+        List<String> added = new ArrayList<>();
+        for(String word : words){
+            if(!collection.contains(word) && collection.add(word)){
+                added.add(word);
+            }
+        }
+        if(!added.isEmpty()){
+            changed();
+        }
+        return added;
+    }
+
+    /**
+     * removes words from the dictionary one at a time, without reloading it. Every copy of a word is
+     * removed from a list that holds more than one. See addWords.
+     * @param words words to be removed
+     * @return the words that were in the dictionary, in the order given
+     * @throws UnsupportedOperationException if the backing collection cannot be removed from
+     */
+    public List<String> removeWords(Collection<String> words){
+        List<String> removed = new ArrayList<>();
+        for(String word : words){
+            if(collection.remove(word)){
+                while(collection.remove(word)){
+                    // a list may hold more than one copy of the word
+                }
+                removed.add(word);
+            }
+        }
+        if(!removed.isEmpty()){
+            changed();
+        }
+        return removed;
+    }
+
     /**
      * clears out the dictionary
      */
     public void clear(){
         collection.clear();
+        changed();
     }
 
+    /**
+     * number of words starting with each pair of letters, for one version of the words
+     */
+    private static final class StartCounts {
+        /**
+         * version of the words counted
+         */
+        private final long version;
+
+        /**
+         * number of words keyed by their first letter shifted 16 bits left, plus their second letter
+         */
+        private final Map<Integer, Integer> pairs;
 
+        /**
+         * holds the counts
+         * @param version version of the words counted
+         * @param pairs number of words keyed by their first two letters
+         */
+        private StartCounts(long version, Map<Integer, Integer> pairs){
+            this.version = version;
+            this.pairs = pairs;
+        }
+    }
 }
@@ -0,0 +1,489 @@
+package lab6.guswilerib;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.zip.CRC32;
+
+/**
+ * A dictionary compiled ahead of time into a binary image that is opened by
+ * memory mapping it read-only. Opening an image creates no objects per word:
+ * lookups walk the minimized word graph stored in the file, and words are
+ * only turned into strings when they are iterated over. Processes that open
+ * the same image share one copy of it in the operating system's page cache.
+ * <br />
+ * <br />
+ * The image starts with a header holding a magic number, a format version,
+ * the section sizes and a CRC32 checksum of everything after the header.
+ * Then come, in order: the start of each word in the word table, the first
+ * edge and the edge targets of the word graph, the letters of the sorted
+ * words packed end to end, the edge letters, and a word flag for each node.
+ * Numbers are big-endian and the integer sections come first so they stay
+ * aligned.<br />
+ * <br />
+ * Usage: <tt>java lab6.guswilerib.DictionaryImage dictionary.txt dictionary.img</tt>
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public final class DictionaryImage extends AbstractCollection<String> implements WordGraph {
+    /**
+     * First four bytes of every image: "L6DI"
+     */
+    private static final int MAGIC = 0x4C364449;
+
+    /**
+     * Version of the image layout written by compile
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Size of the header in bytes
+     */
+    private static final int HEADER_SIZE = 40;
+
+    /**
+     * Number of words in the image
+     */
+    private final int size;
+
+    /**
+     * Index of the node representing the empty prefix
+     */
+    private final int root;
+
+    /**
+     * Start of each word in the word table, plus the end of the last word
+     */
+    private final IntBuffer wordStart;
+
+    /**
+     * Letters of the sorted words, packed end to end
+     */
+    private final CharBuffer wordChars;
+
+    /**
+     * Index of the first outgoing edge of each node, plus the end of the last node's edges
+     */
+    private final IntBuffer firstEdge;
+
+    /**
+     * Node each edge leads to
+     */
+    private final IntBuffer edgeTarget;
+
+    /**
+     * Letter of each edge, sorted alphabetically within a node
+     */
+    private final CharBuffer edgeLabel;
+
+    /**
+     * Whether the path to each node spells a word, one byte per node
+     */
+    private final ByteBuffer word;
+
+    /**
+     * Number of words at or below each node, or null until a word ID is first
+     * asked for. These are not stored in the image, so opening it stays cheap.
+     */
+    private volatile int[] wordCount;
+
+    /**
+     * Letters after each node in the longest word through it, or null until
+     * first asked for. Like the word counts, these are not stored in the image.
+     */
+    private volatile int[] height;
+
+    /**
+     * Creates views of the sections of a checked image
+     * @param image the whole image, positioned at its start
+     * @throws IOException if the header does not describe a valid image
+     */
+    private DictionaryImage(ByteBuffer image) throws IOException {
+        if(image.remaining() < HEADER_SIZE || image.getInt(0) != MAGIC) {
+            throw new IOException("Not a dictionary image.");
+        }
+        int version = image.getInt(4);
+        if(version != VERSION) {
+            throw new IOException("Dictionary image version " + version + " is not supported, expected "
+                    + VERSION + ".");
+        }
+        size = image.getInt(8);
+        int letters = image.getInt(12);
+        int nodes = image.getInt(16);
+        int edges = image.getInt(20);
+        root = image.getInt(24);
+        long checksum = image.getLong(28);
+        if(size < 0 || letters < 0 || nodes < 1 || edges < 0 || root < 0 || root >= nodes
+                || image.limit() != imageSize(size, letters, nodes, edges)) {
+            throw new IOException("The dictionary image is truncated or corrupt.");
+        }
+        if(checksum(image) != checksum) {
+            throw new IOException("The dictionary image checksum does not match.");
+        }
+        int position = HEADER_SIZE;
+        wordStart = section(image, position, (size + 1) * 4).asIntBuffer();
+        position += (size + 1) * 4;
+        firstEdge = section(image, position, (nodes + 1) * 4).asIntBuffer();
+        position += (nodes + 1) * 4;
+        edgeTarget = section(image, position, edges * 4).asIntBuffer();
+        position += edges * 4;
+        wordChars = section(image, position, letters * 2).asCharBuffer();
+        position += letters * 2;
+        edgeLabel = section(image, position, edges * 2).asCharBuffer();
+        position += edges * 2;
+        word = section(image, position, nodes);
+    }
+
+    /**
+     * Opens a dictionary image by memory mapping it read-only and checks its
+     * header and checksum
+     * @param fileName name of the image file
+     * @return the words in the image, which cannot be changed
+     * @throws IOException if the file cannot be read or is not a valid image
+     */
+    public static DictionaryImage open(String fileName) throws IOException {
+        try(FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            if(channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("The dictionary image is too large.");
+            }
+            MappedByteBuffer image = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new DictionaryImage(image);
+        }
+    }
+
+    /**
+     * Compiles a word file into a dictionary image. Words are separated by
+     * whitespace, as they are for Dictionary.load. The image is written to a
+     * temporary file first and moved into place, so a process opening the
+     * image never sees it half written.
+     * @param wordFile name of the word file, in the platform character set
+     * @param imageFile name of the image file to create or replace
+     * @return number of words in the image
+     * @throws IOException if the word file cannot be read or the image cannot be written
+     */
+    public static int compile(String wordFile, String imageFile) throws IOException {
+        Dawg graph = new Dawg();
+        Charset charset = Charset.defaultCharset();
+        if(MappedWordReader.supports(charset)) {
+            try(FileChannel channel = FileChannel.open(Paths.get(wordFile), StandardOpenOption.READ)) {
+                for(List<String> words : MappedWordReader.read(channel, charset)) {
+                    graph.addAll(words);
+                }
+            }
+        } else {
+            try(Scanner scanner = new Scanner(Paths.get(wordFile), charset.name())) {
+                while(scanner.hasNext()) {
+                    graph.add(scanner.next());
+                }
+                if(scanner.ioException() != null) {
+                    throw scanner.ioException();
+                }
+            }
+        }
+        write(graph, Paths.get(imageFile));
+        return graph.size();
+    }
+
+    /**
+     * Writes a word graph and its sorted words out as an image
+     * @param graph word graph to write
+     * @param imageFile image file to create or replace
+     * @throws IOException if the image cannot be written
+     */
+    private static void write(Dawg graph, Path imageFile) throws IOException {
+        int size = graph.size();
+        int letters = 0;
+        for(String word : graph) {
+            letters += word.length();
+        }
+        int nodes = graph.nodeCount();
+        int edges = graph.edgeCount();
+        long imageSize = imageSize(size, letters, nodes, edges);
+        if(imageSize > Integer.MAX_VALUE) {
+            throw new IOException("The dictionary is too large for an image.");
+        }
+
+        ByteBuffer image = ByteBuffer.allocate((int) imageSize);
+        image.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(letters).putInt(nodes).putInt(edges)
+                .putInt(graph.root());
+        image.position(HEADER_SIZE);
+        int start = 0;
+        for(String word : graph) {
+            image.putInt(start);
+            start += word.length();
+        }
+        image.putInt(start);
+        for(int node = 0; node <= nodes; node++) {
+            image.putInt(graph.firstEdge(node));
+        }
+        for(int edge = 0; edge < edges; edge++) {
+            image.putInt(graph.edgeTarget(edge));
+        }
+        for(String word : graph) {
+            for(int i = 0; i < word.length(); i++) {
+                image.putChar(word.charAt(i));
+            }
+        }
+        for(int edge = 0; edge < edges; edge++) {
+            image.putChar(graph.edgeLabel(edge));
+        }
+        for(int node = 0; node < nodes; node++) {
+            image.put((byte) (graph.isWord(node) ? 1 : 0));
+        }
+        image.flip();
+        image.putLong(28, checksum(image));
+
+        Path temporary = imageFile.resolveSibling(imageFile.getFileName() + ".tmp");
+        try {
+            try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while(image.hasRemaining()) {
+                    channel.write(image);
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, imageFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Static entry point for compiling a word file into an image
+     * @param args name of the word file and name of the image file
+     * @throws IOException if the image cannot be compiled
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length != 2) {
+            System.err.println("Usage: java lab6.guswilerib.DictionaryImage <word file> <image file>");
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        int words = compile(args[0], args[1]);
+        System.out.println(String.format("Compiled %,d words into %s (%,d bytes) in %,d ms", words, args[1],
+                Files.size(Paths.get(args[1])), (System.nanoTime() - start) / 1000000));
+    }
+
+    @Override
+    public int root() {
+        return root;
+    }
+
+    @Override
+    public int child(int node, char letter) {
+        int end = firstEdge.get(node + 1);
+        for(int edge = firstEdge.get(node); edge < end; edge++) {
+            char label = edgeLabel.get(edge);
+            if(label == letter) {
+                return edgeTarget.get(edge);
+            } else if(label > letter) {
+                break;
+            }
+        }
+        return NO_NODE;
+    }
+
+    @Override
+    public boolean isWord(int node) {
+        return word.get(node) != 0;
+    }
+
+    @Override
+    public int wordId(char[] letters, int length) {
+        int[] counts = wordCounts();
+        int node = root;
+        int id = 0;
+        for(int i = 0; i < length; i++) {
+            if(isWord(node)) {
+                id++;
+            }
+            int end = firstEdge.get(node + 1);
+            int edge = firstEdge.get(node);
+            while(edge < end && edgeLabel.get(edge) < letters[i]) {
+                id += counts[edgeTarget.get(edge)];
+                edge++;
+            }
+            if(edge == end || edgeLabel.get(edge) != letters[i]) {
+                return -1;
+            }
+            node = edgeTarget.get(edge);
+        }
+        return isWord(node) ? id : -1;
+    }
+
+    @Override
+    public int wordsBefore(int node, char letter) {
+        int[] counts = wordCounts();
+        int id = isWord(node) ? 1 : 0;
+        int end = firstEdge.get(node + 1);
+        for(int edge = firstEdge.get(node); edge < end && edgeLabel.get(edge) < letter; edge++) {
+            id += counts[edgeTarget.get(edge)];
+        }
+        return id;
+    }
+
+    @Override
+    public int height(int node) {
+        int[] heights = height;
+        if(heights == null) {
+            synchronized(this) {
+                heights = height;
+                if(heights == null) {
+                    // Nodes are numbered children first, as in wordCounts
+                    heights = new int[word.limit()];
+                    for(int parent = 0; parent < heights.length; parent++) {
+                        for(int edge = firstEdge.get(parent); edge < firstEdge.get(parent + 1); edge++) {
+                            heights[parent] = Math.max(heights[parent], heights[edgeTarget.get(edge)] + 1);
+                        }
+                    }
+                    height = heights;
+                }
+            }
+        }
+        return heights[node];
+    }
+
+    /**
+     * Returns the number of words at or below each node, counting them the
+     * first time. compile numbers the nodes children first, so counting up
+     * from node 0 sees every node's targets before the node. Safe to call from
+     * several searching threads at once.
+     * @return number of words at or below each node
+     */
+    private int[] wordCounts() {
+        int[] counts = wordCount;
+        if(counts == null) {
+            synchronized(this) {
+                counts = wordCount;
+                if(counts == null) {
+                    counts = new int[word.limit()];
+                    for(int node = 0; node < counts.length; node++) {
+                        counts[node] = isWord(node) ? 1 : 0;
+                        for(int edge = firstEdge.get(node); edge < firstEdge.get(node + 1); edge++) {
+                            counts[node] += counts[edgeTarget.get(edge)];
+                        }
+                    }
+                    wordCount = counts;
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Checks if a word is in the image
+     * @param target word to be searched for
+     * @return true if the word was found
+     */
+    @Override
+    public boolean contains(Object target) {
+        if(!(target instanceof CharSequence)) {
+            return false;
+        }
+        CharSequence letters = (CharSequence) target;
+        int node = root;
+        for(int i = 0; i < letters.length() && node != NO_NODE; i++) {
+            node = child(node, letters.charAt(i));
+        }
+        return node != NO_NODE && isWord(node);
+    }
+
+    /**
+     * Returns a word from the sorted word table
+     * @param index position of the word in alphabetical order
+     * @return the word
+     */
+    public String get(int index) {
+        if(index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int start = wordStart.get(index);
+        char[] letters = new char[wordStart.get(index + 1) - start];
+        for(int i = 0; i < letters.length; i++) {
+            letters[i] = wordChars.get(start + i);
+        }
+        return new String(letters);
+    }
+
+    /**
+     * Returns the words in the image in alphabetical order. Each word is read
+     * out of the image as the iterator reaches it.
+     * @return iterator over the words
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public String next() {
+                if(!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes an image with the given section sizes takes
+     * @param words number of words
+     * @param letters total letters in all words
+     * @param nodes number of graph nodes
+     * @param edges number of graph edges
+     * @return size of the image in bytes
+     */
+    private static long imageSize(int words, int letters, int nodes, int edges) {
+        return HEADER_SIZE + 4L * (words + 1) + 4L * (nodes + 1) + 4L * edges + 2L * letters + 2L * edges + nodes;
+    }
+
+    /**
+     * Computes the checksum of everything after the header
+     * @param image the whole image
+     * @return CRC32 of the sections
+     */
+    private static long checksum(ByteBuffer image) {
+        CRC32 crc = new CRC32();
+        crc.update(section(image, HEADER_SIZE, image.limit() - HEADER_SIZE));
+        return crc.getValue();
+    }
+
+    /**
+     * Returns a big-endian view of part of the image
+     * @param image the whole image
+     * @param position first byte of the part
+     * @param length number of bytes in the part
+     * @return the view, which shares the image's memory
+     */
+    private static ByteBuffer section(ByteBuffer image, int position, int length) {
+        ByteBuffer duplicate = image.duplicate();
+        duplicate.position(position);
+        duplicate.limit(position + length);
+        return duplicate.slice();
+    }
+}
@@ -0,0 +1,52 @@
+package lab6.guswilerib;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for loading a dictionary, from opening the file to
+ * the last word being added to the backing collection.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+@Name("lab6.DictionaryLoad")
+@Label("Dictionary Load")
+@Category("Word Search")
+@Description("Loading a word file or opening a dictionary image")
+class DictionaryLoadEvent extends Event {
+    /**
+     * Name of the file loaded
+     */
+    @Label("File")
+    String fileName;
+
+    /**
+     * How the file was read: mapped, scanner or image
+     */
+    @Label("Loader")
+    String loader;
+
+    /**
+     * Class of the collection behind the dictionary
+     */
+    @Label("Backing Collection")
+    String backing;
+
+    /**
+     * Number of words read from the file
+     */
+    @Label("Words Read")
+    int words;
+
+    /**
+     * Size of the file loaded
+     */
+    @Label("File Size")
+    @DataAmount
+    long fileSize;
+}
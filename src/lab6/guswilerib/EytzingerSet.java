@@ -0,0 +1,262 @@
+package lab6.guswilerib;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Sorted, read-optimized word set that can be used as the collection behind a
+ * dictionary. The words are kept in an array in Eytzinger order: the middle
+ * word comes first, followed by the middle words of each half, and so on, one
+ * level of the binary search at a time. The word at index k is followed by the
+ * words at 2k and 2k + 1, so a search only moves down the array and the first
+ * levels, which every search visits, share a few cache lines.<br />
+ * <br />
+ * Next to each word its first eight letters are packed into a long, a byte
+ * each. Most comparisons are decided by these keys alone, without following
+ * the reference to the word. Only a tie, which means the words share their
+ * first eight letters, compares the words themselves.<br />
+ * <br />
+ * Words are collected in a hash set as they are added. The first time the set
+ * is read, the words are sorted and laid out and the hash set is thrown away.
+ * Adding words after that lays the set out again the next time it is read.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public class EytzingerSet extends AbstractCollection<String> {
+    /**
+     * Number of leading letters packed into each key
+     */
+    private static final int KEY_LETTERS = 8;
+
+    /**
+     * Largest letter a key can hold. Larger letters are stored as this and end the key.
+     */
+    private static final char KEY_LETTER_MAX = 0xFF;
+
+    /**
+     * Words in Eytzinger order, starting at index 1. Index 0 is unused.
+     */
+    private String[] words;
+
+    /**
+     * First letters of each word, packed a byte per letter and padded with zeros
+     */
+    private long[] keys;
+
+    /**
+     * Number of words in the set
+     */
+    private int size;
+
+    /**
+     * Words added since the set was last laid out, or null if there are none.
+     * Volatile so that once a thread sees it cleared it also sees the laid out arrays.
+     */
+    private volatile Set<String> pending;
+
+    /**
+     * Creates an empty set
+     */
+    public EytzingerSet(){
+        clear();
+    }
+
+    /**
+     * Adds a word to the set
+     * @param value word to be added
+     * @return true if the word was not already in the set
+     */
+    @Override
+    public boolean add(String value){
+        if(pending == null){
+            Set<String> added = new HashSet<>(this);
+            pending = added;
+        }
+        return pending.add(value);
+    }
+
+    /**
+     * Checks if a word is in the set
+     * @param target word to be searched for
+     * @return true if the word was found
+     */
+    @Override
+    public boolean contains(Object target){
+        if(!(target instanceof CharSequence)){
+            return false;
+        }
+        CharSequence word = (CharSequence) target;
+        long key = key(word);
+        int index = ceilingIndex(word, key);
+        return index != 0 && keys[index] == key && CharSequence.compare(words[index], word) == 0;
+    }
+
+    /**
+     * Returns the first word in alphabetical order that is not before the given letters
+     * @param target letters to look for
+     * @return the word itself if it is in the set, the word that would follow it otherwise,
+     *         or null if every word comes before it
+     */
+    public String ceiling(CharSequence target){
+        int index = ceilingIndex(target, key(target));
+        return index == 0 ? null : words[index];
+    }
+
+    /**
+     * Returns the words in the set in alphabetical order
+     * @return iterator over the words
+     */
+    @Override
+    public Iterator<String> iterator(){
+        layOut();
+        return new Iterator<String>() {
+            private int next = first(1);
+
+            @Override
+            public boolean hasNext() {
+                return next != 0;
+            }
+
+            @Override
+            public String next() {
+                if(!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                String word = words[next];
+                next = successor(next);
+                return word;
+            }
+        };
+    }
+
+    @Override
+    public int size(){
+        layOut();
+        return size;
+    }
+
+    /**
+     * Removes every word from the set
+     */
+    @Override
+    public void clear(){
+        words = new String[1];
+        keys = new long[1];
+        size = 0;
+        pending = null;
+    }
+
+    /**
+     * Finds the first word that is not before the given one. The search
+     * walks down from the root, taking the right child whenever the word at
+     * hand comes before the target, and never leaves the loop early. The
+     * index it ends on records every turn taken, so the answer is found by
+     * dropping the right turns taken after the last left turn.
+     * @param target letters to look for
+     * @param key key of the target
+     * @return index of the word, or 0 if every word comes before the target
+     */
+    private int ceilingIndex(CharSequence target, long key){
+        layOut();
+        int index = 1;
+        while(index <= size){
+            int order = keys[index] == key ? CharSequence.compare(words[index], target)
+                    : Long.compareUnsigned(keys[index], key);
+            index = 2 * index + (order < 0 ? 1 : 0);
+        }
+        return index >>> (Integer.numberOfTrailingZeros(~index) + 1);
+    }
+
+    /**
+     * Returns the first word in alphabetical order below a position
+     * @param index position to start from
+     * @return index of the leftmost word below it, or 0 if the set is empty
+     */
+    private int first(int index){
+        if(index > size){
+            return 0;
+        }
+        while(2 * index <= size){
+            index *= 2;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the word that follows another in alphabetical order
+     * @param index position of the word
+     * @return position of the next word, or 0 if it is the last one
+     */
+    private int successor(int index){
+        if(2 * index + 1 <= size){
+            return first(2 * index + 1);
+        }
+        return index >>> (Integer.numberOfTrailingZeros(~index) + 1);
+    }
+
+    /**
+     * Lays the pending words out in Eytzinger order if words have been added
+     * since the last time. Safe to call from several searching threads at once.
+     */
+    void layOut(){
+        if(pending != null){
+            synchronized(this){
+                if(pending != null){
+                    String[] sorted = pending.toArray(new String[0]);
+                    Arrays.sort(sorted);
+                    size = sorted.length;
+                    words = new String[size + 1];
+                    keys = new long[size + 1];
+                    fill(sorted, 0, 1);
+                    pending = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Places sorted words in the part of the tree below a position, in order
+     * @param sorted every word, in alphabetical order
+     * @param next index in sorted of the next word to place
+     * @param index position in the tree to fill
+     * @return index in sorted of the next word to place after this part of the tree
+     */
+    private int fill(String[] sorted, int next, int index){
+        if(index <= size){
+            next = fill(sorted, next, 2 * index);
+            words[index] = sorted[next];
+            keys[index] = key(sorted[next]);
+            next = fill(sorted, next + 1, 2 * index + 1);
+        }
+        return next;
+    }
+
+    /**
+     * Packs the first letters of a word into a key. Keys compare, as unsigned
+     * numbers, in the same order as the words they come from, except that
+     * words sharing their first letters tie. A letter too large for a byte is
+     * stored as the largest byte and ends the key, which keeps the order
+     * because every word with a larger letter in that place ties.
+     * @param word letters of the word to pack
+     * @return the key
+     */
+    private static long key(CharSequence word){
+        long key = 0;
+        int i = 0;
+        for(; i < KEY_LETTERS && i < word.length(); i++){
+            char letter = word.charAt(i);
+            if(letter >= KEY_LETTER_MAX){
+                key = key << 8 | KEY_LETTER_MAX;
+                i++;
+                break;
+            }
+            key = key << 8 | letter;
+        }
+        return key << 8 * (KEY_LETTERS - i);
+    }
+}
@@ -0,0 +1,457 @@
+package lab6.guswilerib;
+
+import lab6.GamePiece;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Finds the words on a game board and keeps them up to date as letters on the
+ * board are changed, without searching the whole board again. Alongside the
+ * words it keeps, for every game piece, the words with a path through it.
+ * When letters change:
+ * <ol>
+ *     <li>the words with a path through a changed game piece are dropped,</li>
+ *     <li>only the paths through a changed game piece are searched again,
+ *     starting no further from one than the longest word can reach, and
+ *     giving up on a path once it can no longer reach one, and</li>
+ *     <li>the dropped words that were not found again are looked for on the
+ *     board, since they may still have a path that avoids the changes.</li>
+ * </ol>
+ * The words found are always those a full search of the edited board would
+ * find. Paths through a game piece are remembered even after the word they
+ * spell moves elsewhere, so the words kept for a game piece are all those
+ * that may have a path through it, never fewer.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public class IncrementalWordFinder implements WordSearchEngine {
+    /**
+     * Dictionary of words known to be spelled correctly
+     */
+    private final Dictionary dictionary;
+
+    /**
+     * Word graph behind the dictionary, or null if the dictionary is not backed by one
+     */
+    private final WordGraph graph;
+
+    /**
+     * Letter on each game piece, as it appears on the board
+     */
+    private final char[] letters;
+
+    /**
+     * Letter on each game piece in lower case, as it appears in the dictionary
+     */
+    private final char[] lowerLetters;
+
+    /**
+     * Indexes of the neighbors of each game piece
+     */
+    private final int[][] neighbors;
+
+    /**
+     * Indexes of the game pieces each game piece is a neighbor of, which are
+     * its neighbors unless the topology has moves that cannot be undone
+     */
+    private final int[][] predecessors;
+
+    /**
+     * Words found on the game board that are in the dictionary
+     */
+    private final Collection<String> foundWords = new TreeSet<>();
+
+    /**
+     * Words that may have a path through each game piece, or null for none
+     */
+    private final List<Set<String>> wordsByCell;
+
+    /**
+     * Fewest moves from each game piece to a changed one, while updating
+     */
+    private final int[] distance;
+
+    /**
+     * Whether each game piece has just been changed, while updating
+     */
+    private final boolean[] changed;
+
+    /**
+     * Game pieces on the current path
+     */
+    private final boolean[] visited;
+
+    /**
+     * Game pieces of the current path, in order
+     */
+    private final int[] path = new int[WordFinder.MAX_WORD_LENGTH];
+
+    /**
+     * The current word, as it appears on the board
+     */
+    private final char[] word = new char[WordFinder.MAX_WORD_LENGTH];
+
+    /**
+     * The current word in lower case
+     */
+    private final char[] lowerWord = new char[WordFinder.MAX_WORD_LENGTH];
+
+    /**
+     * The lower case word as a CharSequence, for looking it up in a dictionary
+     * that is not a word graph
+     */
+    private final LetterBuffer lookup = new LetterBuffer(lowerWord);
+
+    /**
+     * Word graph node of each prefix of the current word, starting with the empty prefix
+     */
+    private final int[] nodes = new int[WordFinder.MAX_WORD_LENGTH + 1];
+
+    /**
+     * Number of letters in the current word
+     */
+    private int length;
+
+    /**
+     * Number of changed game pieces on the current path, or -1 when every path is wanted
+     */
+    private int changedOnPath;
+
+    /**
+     * Set to stop a full search running on another thread
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * Set when the last full search was cancelled, so the words kept for each
+     * game piece cannot be updated and the next edit searches the whole board
+     */
+    private boolean partial;
+
+    /**
+     * Creates an incremental word finder. Words may use all eight neighbors of a game piece.
+     * @param gameBoard The game board to be searched, which is copied and never changed
+     * @param dictionary A collection of correctly spelled words
+     * @param rows Number of rows in game board
+     * @param cols Number of columns in game board
+     */
+    public IncrementalWordFinder(List<GamePiece<Character>> gameBoard, Dictionary dictionary, int rows, int cols) {
+        this(gameBoard, dictionary, rows, cols, Topology.EIGHT_WAY);
+    }
+
+    /**
+     * Creates an incremental word finder
+     * @param gameBoard The game board to be searched, which is copied and never changed
+     * @param dictionary A collection of correctly spelled words
+     * @param rows Number of rows in game board
+     * @param cols Number of columns in game board
+     * @param topology Moves allowed between the game pieces of a word
+     */
+    public IncrementalWordFinder(List<GamePiece<Character>> gameBoard, Dictionary dictionary, int rows, int cols,
+                                 Topology topology) {
+        this.dictionary = dictionary;
+        graph = dictionary.getWordGraph();
+        letters = new char[gameBoard.size()];
+        lowerLetters = new char[gameBoard.size()];
+        for(int i = 0; i < letters.length; ++i) {
+            letters[i] = gameBoard.get(i).getElement();
+            lowerLetters[i] = Character.toLowerCase(letters[i]);
+        }
+        neighbors = topology.neighbors(rows, cols);
+        int[] counts = new int[letters.length];
+        for(int[] next : neighbors) {
+            for(int neighbor : next) {
+                ++counts[neighbor];
+            }
+        }
+        predecessors = new int[letters.length][];
+        for(int i = 0; i < letters.length; ++i) {
+            predecessors[i] = new int[counts[i]];
+        }
+        for(int cell = 0; cell < letters.length; ++cell) {
+            for(int neighbor : neighbors[cell]) {
+                predecessors[neighbor][--counts[neighbor]] = cell;
+            }
+        }
+        wordsByCell = new ArrayList<>(Collections.<Set<String>>nCopies(letters.length, null));
+        distance = new int[letters.length];
+        changed = new boolean[letters.length];
+        visited = new boolean[letters.length];
+    }
+
+    /**
+     * Searches the whole game board for words, forgetting any found before
+     */
+    @Override
+    public void startSearching() {
+        cancelled = false;
+        foundWords.clear();
+        for(int i = 0; i < letters.length; ++i) {
+            wordsByCell.set(i, null);
+        }
+        changedOnPath = -1;
+        for(int cell = 0; cell < letters.length && !cancelled; ++cell) {
+            search(cell);
+        }
+        partial = cancelled;
+    }
+
+    /**
+     * Stops a full search running on another thread. The search returns soon
+     * after, with the words found so far, and the next edit searches the
+     * whole board again. Edits themselves are not cancelled.
+     */
+    @Override
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Changes the letter on one game piece and updates the words found
+     * @param cell Index of the game piece, row * cols + col
+     * @param letter New letter on the game piece
+     */
+    public void setLetter(int cell, char letter) {
+        setLetters(new int[]{cell}, new char[]{letter});
+    }
+
+    /**
+     * Changes the letters on some game pieces and updates the words found, as
+     * described in the class description. The words found are the same as if
+     * the edited board had been searched from scratch.
+     * @param cells Indexes of the game pieces, row * cols + col
+     * @param newLetters New letter on each of the game pieces
+     */
+    public void setLetters(int[] cells, char[] newLetters) {
+        if(cells.length != newLetters.length) {
+            throw new IllegalArgumentException("Got " + cells.length + " game pieces but "
+                    + newLetters.length + " letters.");
+        }
+        Set<String> dropped = new HashSet<>();
+        List<Integer> changes = new ArrayList<>();
+        for(int i = 0; i < cells.length; ++i) {
+            int cell = cells[i];
+            if(letters[cell] != newLetters[i]) {
+                letters[cell] = newLetters[i];
+                lowerLetters[cell] = Character.toLowerCase(newLetters[i]);
+                if(!changed[cell]) {
+                    changed[cell] = true;
+                    changes.add(cell);
+                    Set<String> through = wordsByCell.set(cell, null);
+                    if(through != null) {
+                        dropped.addAll(through);
+                    }
+                }
+            }
+        }
+        if(changes.isEmpty()) {
+            return;
+        }
+        if(partial) {
+            for(int cell : changes) {
+                changed[cell] = false;
+            }
+            startSearching();
+            return;
+        }
+        foundWords.removeAll(dropped);
+
+        measureDistances(changes);
+        changedOnPath = 0;
+        for(int cell = 0; cell < letters.length; ++cell) {
+            if(distance[cell] < WordFinder.MAX_WORD_LENGTH) {
+                search(cell);
+            }
+        }
+        for(int cell : changes) {
+            changed[cell] = false;
+        }
+
+        dropped.removeAll(foundWords);
+        for(String word : dropped) {
+            if(spelled(word)) {
+                foundWords.add(word);
+            }
+        }
+    }
+
+    /**
+     * Finds the fewest moves from every game piece to a changed one, by a
+     * breadth first search backwards from the changed game pieces. Game pieces
+     * too far away for any word to reach a changed one are left at
+     * MAX_WORD_LENGTH.
+     * @param changes Indexes of the changed game pieces
+     */
+    private void measureDistances(List<Integer> changes) {
+        Arrays.fill(distance, WordFinder.MAX_WORD_LENGTH);
+        int[] queue = new int[letters.length];
+        int head = 0;
+        int tail = 0;
+        for(int cell : changes) {
+            distance[cell] = 0;
+            queue[tail++] = cell;
+        }
+        while(head < tail) {
+            int cell = queue[head++];
+            if(distance[cell] + 1 < WordFinder.MAX_WORD_LENGTH) {
+                for(int previous : predecessors[cell]) {
+                    if(distance[previous] > distance[cell] + 1) {
+                        distance[previous] = distance[cell] + 1;
+                        queue[tail++] = previous;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Searches for the words starting on a game piece
+     * @param cell Index of the game piece
+     */
+    private void search(int cell) {
+        length = 0;
+        nodes[0] = graph != null ? graph.root() : 0;
+        recursiveSearch(cell);
+    }
+
+    /**
+     * Wanders from a game piece like WordFinder.recursiveSearch, recording the
+     * game pieces of every word found. While updating, only paths through a
+     * changed game piece are followed, so a path is given up once the changed
+     * game pieces are further away than the letters it has left, or than the
+     * longest word starting with it can reach.
+     * @param cell Index of the game piece under the cursor
+     */
+    private void recursiveSearch(int cell) {
+        if(length >= WordFinder.MAX_WORD_LENGTH || visited[cell]
+                || (changedOnPath == 0 && length + distance[cell] >= WordFinder.MAX_WORD_LENGTH)) {
+            return;
+        }
+        int node = nextNode(cell);
+        if(node == WordGraph.NO_NODE || (changedOnPath == 0 && graph != null
+                && graph.height(node) < distance[cell])) {
+            return;
+        }
+        word[length] = letters[cell];
+        path[length] = cell;
+        nodes[++length] = node;
+        visited[cell] = true;
+        if(changedOnPath >= 0 && changed[cell]) {
+            ++changedOnPath;
+        }
+
+        if(length >= WordFinder.MIN_WORD_LENGTH && changedOnPath != 0 && isWord(node)) {
+            validWord();
+        }
+        for(int neighbor : neighbors[cell]) {
+            recursiveSearch(neighbor);
+        }
+
+        if(changedOnPath > 0 && changed[cell]) {
+            --changedOnPath;
+        }
+        visited[cell] = false;
+        --length;
+    }
+
+    /**
+     * Looks up the current word followed by the letter on a game piece
+     * @param cell Index of the game piece that would be added to the word
+     * @return Node of the longer word in the word graph (0 when the dictionary has
+     *         none), or NO_NODE if no word in the dictionary starts with it
+     */
+    private int nextNode(int cell) {
+        lowerWord[length] = lowerLetters[cell];
+        if(graph != null) {
+            return graph.child(nodes[length], lowerLetters[cell]);
+        }
+        return dictionary.hasPrefix(lookup.setLength(length + 1)) ? 0 : WordGraph.NO_NODE;
+    }
+
+    /**
+     * Checks if the current word is in the dictionary
+     * @param node Node of the current word, as returned by nextNode
+     * @return <tt>true</tt> if the current word is in the dictionary
+     */
+    private boolean isWord(int node) {
+        return graph != null ? graph.isWord(node) : dictionary.contains(lookup.setLength(length));
+    }
+
+    /**
+     * Records the current word and the game pieces it was found on
+     */
+    private void validWord() {
+        String found = new String(word, 0, length);
+        foundWords.add(found);
+        for(int i = 0; i < length; ++i) {
+            Set<String> through = wordsByCell.get(path[i]);
+            if(through == null) {
+                through = new HashSet<>();
+                wordsByCell.set(path[i], through);
+            }
+            through.add(found);
+        }
+    }
+
+    /**
+     * Checks if a word can still be spelled on the board, letter for letter.
+     * A path found here avoids the changed game pieces, so its game pieces
+     * already have the word among theirs.
+     * @param target Word to look for, as it appeared on the board
+     * @return <tt>true</tt> if the word is on the board
+     */
+    private boolean spelled(String target) {
+        for(int cell = 0; cell < letters.length; ++cell) {
+            if(spells(target, 0, cell)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the rest of a word can be spelled starting at a game piece
+     * @param target Word being looked for
+     * @param index Index of the letter of the word that should be on the game piece
+     * @param cell Index of the game piece
+     * @return <tt>true</tt> if the word was spelled
+     */
+    private boolean spells(String target, int index, int cell) {
+        if(visited[cell] || letters[cell] != target.charAt(index)) {
+            return false;
+        }
+        if(index == target.length() - 1) {
+            return true;
+        }
+        visited[cell] = true;
+        boolean spelled = false;
+        for(int i = 0; i < neighbors[cell].length && !spelled; ++i) {
+            spelled = spells(target, index + 1, neighbors[cell][i]);
+        }
+        visited[cell] = false;
+        return spelled;
+    }
+
+    /**
+     * Returns the letter on a game piece, which may have been changed since
+     * the finder was created
+     * @param cell Index of the game piece
+     * @return The letter on the game piece
+     */
+    public char getLetter(int cell) {
+        return letters[cell];
+    }
+
+    @Override
+    public Collection<String> getResults() {
+        return foundWords;
+    }
+}
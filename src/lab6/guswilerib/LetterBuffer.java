@@ -0,0 +1,70 @@
+package lab6.guswilerib;
+
+/**
+ * The first letters of a char array seen as a CharSequence, so the word a
+ * search is building can be looked up in a dictionary without copying it into
+ * a string. The array is shared, not copied, and the length can be changed as
+ * the word grows and shrinks, so one buffer serves every lookup of a search.
+ * A dictionary must not keep the buffer past the lookup it was given to.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+final class LetterBuffer implements CharSequence {
+    /**
+     * Letters of the word, of which only the first length count
+     */
+    private final char[] letters;
+
+    /**
+     * Number of letters in the word
+     */
+    private int length;
+
+    /**
+     * Creates an empty buffer over an array
+     * @param letters array the letters of the word are written to
+     */
+    LetterBuffer(char[] letters) {
+        this.letters = letters;
+    }
+
+    /**
+     * Sets the number of letters of the array that make up the word
+     * @param length number of letters, from 0 up to the length of the array
+     * @return this buffer
+     */
+    LetterBuffer setLength(int length) {
+        if(length < 0 || length > letters.length) {
+            throw new IndexOutOfBoundsException("Length " + length + " out of 0 to " + letters.length);
+        }
+        this.length = length;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if(index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of 0 to " + length);
+        }
+        return letters[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if(start < 0 || start > end || end > length) {
+            throw new IndexOutOfBoundsException("Range " + start + " to " + end + " out of 0 to " + length);
+        }
+        return new String(letters, start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(letters, 0, length);
+    }
+}
@@ -0,0 +1,209 @@
+package lab6.guswilerib;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Splits a word file into words by memory mapping it and scanning its bytes,
+ * rather than running a Scanner's regular expression over every token. Words
+ * are separated the same way a Scanner separates them: by any run of
+ * characters for which Character.isWhitespace is true.<br />
+ * <br />
+ * Only character sets that store ASCII as single bytes (UTF-8, ISO-8859-1 and
+ * US-ASCII) can be scanned this way, since the ASCII whitespace bytes then
+ * never appear inside another character. Tokens holding other bytes are
+ * decoded and split again on any non-ASCII whitespace. Large files are cut
+ * into chunks at whitespace and the chunks are scanned in parallel.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+final class MappedWordReader {
+    /**
+     * Files smaller than this are scanned on the calling thread
+     */
+    private static final long PARALLEL_THRESHOLD = 8L << 20;
+
+    /**
+     * Largest chunk mapped at once
+     */
+    private static final long MAX_CHUNK = 256L << 20;
+
+    /**
+     * Number of bytes read at a time while looking for a chunk boundary
+     */
+    private static final int BOUNDARY_READ = 256;
+
+    /**
+     * Character sets in which ASCII characters are single bytes
+     */
+    private static final List<Charset> SUPPORTED = Arrays.asList(
+            StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.US_ASCII);
+
+    /**
+     * Not to be created, only used through its static methods
+     */
+    private MappedWordReader() {
+    }
+
+    /**
+     * Checks if files in a character set can be scanned byte by byte
+     * @param charset character set of the file
+     * @return true if ASCII characters are single bytes in the character set
+     */
+    static boolean supports(Charset charset) {
+        return SUPPORTED.contains(charset);
+    }
+
+    /**
+     * Reads every word in a file
+     * @param channel open channel to the file
+     * @param charset character set of the file, which must be supported
+     * @return the words of each chunk of the file, in file order
+     * @throws IOException if the file cannot be read
+     */
+    static List<List<String>> read(final FileChannel channel, final Charset charset) throws IOException {
+        long size = channel.size();
+        int chunks = 1;
+        if(size >= PARALLEL_THRESHOLD) {
+            chunks = (int) Math.max(Runtime.getRuntime().availableProcessors(), (size + MAX_CHUNK - 1) / MAX_CHUNK);
+        }
+        final long[] bounds = new long[chunks + 1];
+        for(int i = 1; i < chunks; i++) {
+            bounds[i] = nextWhitespace(channel, Math.max(bounds[i - 1], size * i / chunks), size);
+        }
+        bounds[chunks] = size;
+        if(chunks == 1) {
+            return Arrays.asList(readChunk(channel, 0, size, charset));
+        }
+        try {
+            return IntStream.range(0, chunks).parallel()
+                    .mapToObj(i -> {
+                        try {
+                            return readChunk(channel, bounds[i], bounds[i + 1], charset);
+                        } catch(IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .collect(Collectors.toList());
+        } catch(UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Finds the first whitespace byte at or after a position
+     * @param channel open channel to the file
+     * @param position position to start looking at
+     * @param size size of the file
+     * @return position of the whitespace byte, or the size of the file if there is none
+     * @throws IOException if the file cannot be read
+     */
+    private static long nextWhitespace(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_READ);
+        while(position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if(read <= 0) {
+                break;
+            }
+            for(int i = 0; i < read; i++) {
+                if(isWhitespace(buffer.get(i))) {
+                    return position + i;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Reads the words in part of a file that starts and ends between words
+     * @param channel open channel to the file
+     * @param start position of the first byte of the chunk
+     * @param end position one past the last byte of the chunk
+     * @param charset character set of the file
+     * @return the words in the chunk, in file order
+     * @throws IOException if the file cannot be read
+     */
+    private static List<String> readChunk(FileChannel channel, long start, long end, Charset charset)
+            throws IOException {
+        List<String> words = new ArrayList<>();
+        if(end <= start) {
+            return words;
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        byte[] token = new byte[64];
+        int length = 0;
+        boolean ascii = true;
+        int limit = buffer.limit();
+        for(int i = 0; i < limit; i++) {
+            byte b = buffer.get(i);
+            if(isWhitespace(b)) {
+                if(length > 0) {
+                    addToken(words, token, length, ascii, charset);
+                    length = 0;
+                    ascii = true;
+                }
+            } else {
+                if(length == token.length) {
+                    token = Arrays.copyOf(token, length * 2);
+                }
+                token[length++] = b;
+                ascii &= b >= 0;
+            }
+        }
+        if(length > 0) {
+            addToken(words, token, length, ascii, charset);
+        }
+        return words;
+    }
+
+    /**
+     * Adds the word or words in a token to a list
+     * @param words list the words are added to
+     * @param token bytes of the token
+     * @param length number of bytes in the token
+     * @param ascii true if every byte of the token is ASCII
+     * @param charset character set of the file
+     */
+    private static void addToken(List<String> words, byte[] token, int length, boolean ascii, Charset charset) {
+        if(ascii) {
+            words.add(new String(token, 0, length, StandardCharsets.ISO_8859_1));
+        } else {
+            String decoded = new String(token, 0, length, charset);
+            int wordStart = -1;
+            for(int i = 0; i <= decoded.length(); ) {
+                int codePoint = i < decoded.length() ? decoded.codePointAt(i) : ' ';
+                if(Character.isWhitespace(codePoint)) {
+                    if(wordStart >= 0) {
+                        words.add(decoded.substring(wordStart, i));
+                        wordStart = -1;
+                    }
+                } else if(wordStart < 0) {
+                    wordStart = i;
+                }
+                i += i < decoded.length() ? Character.charCount(codePoint) : 1;
+            }
+        }
+    }
+
+    /**
+     * Checks if a byte is an ASCII character for which Character.isWhitespace is true
+     * @param b byte to check
+     * @return true if the byte separates words
+     */
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || (b >= 0x09 && b <= 0x0D) || (b >= 0x1C && b <= 0x1F);
+    }
+}
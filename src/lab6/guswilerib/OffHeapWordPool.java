@@ -0,0 +1,261 @@
+package lab6.guswilerib;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Sorted word set that keeps its words outside the Java heap, so it can be
+ * used as the collection behind a large dictionary without filling the heap
+ * with strings. The words are stored as Latin-1 bytes, one byte per letter,
+ * packed end to end in a single direct buffer. The heap only holds the buffer
+ * object and a table with the start of each word, so a garbage collection has
+ * two objects to look at however many words there are.<br />
+ * <br />
+ * Lookups binary search the table and compare the letters of the word being
+ * looked up with the bytes in the buffer, without creating any strings.
+ * Words are only turned into strings when they are iterated over.<br />
+ * <br />
+ * Words are collected in a hash set as they are added. The first time the
+ * pool is read, the words are sorted and packed into the buffer and the hash
+ * set is thrown away. Adding words after that packs the pool again the next
+ * time it is read.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public class OffHeapWordPool extends AbstractCollection<String> {
+    /**
+     * Largest letter that fits in a Latin-1 byte
+     */
+    private static final char LATIN_1_MAX = 0xFF;
+
+    /**
+     * Letters of the sorted words as Latin-1 bytes, packed end to end
+     */
+    private ByteBuffer letters;
+
+    /**
+     * Start of each word in the buffer, plus the end of the last word
+     */
+    private int[] wordStart;
+
+    /**
+     * Number of words in the pool
+     */
+    private int size;
+
+    /**
+     * Words added since the pool was last packed, or null if there are none.
+     * Volatile so that once a thread sees it cleared it also sees the packed words.
+     */
+    private volatile Set<String> pending;
+
+    /**
+     * Creates an empty pool
+     */
+    public OffHeapWordPool(){
+        clear();
+    }
+
+    /**
+     * Adds a word to the pool
+     * @param value word to be added
+     * @return true if the word was not already in the pool
+     * @throws IllegalArgumentException if the word has a letter that is not in Latin-1
+     */
+    @Override
+    public boolean add(String value){
+        for(int i = 0; i < value.length(); i++){
+            if(value.charAt(i) > LATIN_1_MAX){
+                throw new IllegalArgumentException("The word " + value + " cannot be stored as Latin-1.");
+            }
+        }
+        if(pending == null){
+            Set<String> added = new HashSet<>(this);
+            pending = added;
+        }
+        return pending.add(value);
+    }
+
+    /**
+     * Checks if a word is in the pool
+     * @param target word to be searched for
+     * @return true if the word was found
+     */
+    @Override
+    public boolean contains(Object target){
+        if(!(target instanceof CharSequence)){
+            return false;
+        }
+        CharSequence word = (CharSequence) target;
+        int index = lowerBound(word);
+        return index < size && compare(index, word) == 0;
+    }
+
+    /**
+     * Checks if any word in the pool starts with the given letters
+     * @param prefix letters the word must start with
+     * @return true if at least one word starts with the prefix
+     */
+    public boolean hasPrefix(CharSequence prefix){
+        int index = lowerBound(prefix);
+        if(index == size || wordStart[index + 1] - wordStart[index] < prefix.length()){
+            return false;
+        }
+        int start = wordStart[index];
+        for(int i = 0; i < prefix.length(); i++){
+            if((letters.get(start + i) & 0xFF) != prefix.charAt(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a word from the pool
+     * @param index position of the word in alphabetical order
+     * @return the word
+     */
+    public String get(int index){
+        pack();
+        if(index < 0 || index >= size){
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        byte[] bytes = new byte[wordStart[index + 1] - wordStart[index]];
+        for(int i = 0; i < bytes.length; i++){
+            bytes[i] = letters.get(wordStart[index] + i);
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Returns the words in the pool in alphabetical order. Each word is
+     * turned into a string as the iterator reaches it.
+     * @return iterator over the words
+     */
+    @Override
+    public Iterator<String> iterator(){
+        pack();
+        return new Iterator<String>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public String next() {
+                if(!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+        };
+    }
+
+    @Override
+    public int size(){
+        pack();
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes the pool holds outside the heap
+     * @return capacity of the buffer holding the letters
+     */
+    public int offHeapBytes(){
+        pack();
+        return letters.capacity();
+    }
+
+    /**
+     * Removes every word from the pool. The memory outside the heap is
+     * released once the old buffer is garbage collected.
+     */
+    @Override
+    public void clear(){
+        letters = ByteBuffer.allocateDirect(0);
+        wordStart = new int[1];
+        size = 0;
+        pending = null;
+    }
+
+    /**
+     * Finds the first word that is not before the given one
+     * @param target letters to look for
+     * @return index of the word, or size if every word comes before the target
+     */
+    private int lowerBound(CharSequence target){
+        pack();
+        int low = 0;
+        int high = size;
+        while(low < high){
+            int middle = (low + high) >>> 1;
+            if(compare(middle, target) < 0){
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares a word in the pool with other letters, in the same order as String.compareTo
+     * @param index position of the word in the pool
+     * @param target letters to compare with
+     * @return negative, zero or positive as the word comes before, is the same as or comes after the target
+     */
+    private int compare(int index, CharSequence target){
+        int start = wordStart[index];
+        int length = wordStart[index + 1] - start;
+        int common = Math.min(length, target.length());
+        for(int i = 0; i < common; i++){
+            int difference = (letters.get(start + i) & 0xFF) - target.charAt(i);
+            if(difference != 0){
+                return difference;
+            }
+        }
+        return length - target.length();
+    }
+
+    /**
+     * Packs the pending words into a new buffer if words have been added
+     * since the last time. Safe to call from several searching threads at once.
+     */
+    void pack(){
+        if(pending != null){
+            synchronized(this){
+                if(pending != null){
+                    String[] sorted = pending.toArray(new String[0]);
+                    Arrays.sort(sorted);
+                    long total = 0;
+                    for(String word : sorted){
+                        total += word.length();
+                    }
+                    if(total > Integer.MAX_VALUE){
+                        throw new IllegalStateException("The words do not fit in one buffer.");
+                    }
+                    ByteBuffer packed = ByteBuffer.allocateDirect((int) total);
+                    int[] starts = new int[sorted.length + 1];
+                    for(int i = 0; i < sorted.length; i++){
+                        starts[i] = packed.position();
+                        packed.put(sorted[i].getBytes(StandardCharsets.ISO_8859_1));
+                    }
+                    starts[sorted.length] = packed.position();
+                    letters = packed;
+                    wordStart = starts;
+                    size = sorted.length;
+                    pending = null;
+                }
+            }
+        }
+    }
+}
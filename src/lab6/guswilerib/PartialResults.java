@@ -0,0 +1,86 @@
+package lab6.guswilerib;
+
+import java.util.Collection;
+
+/**
+ * The words a budgeted WordFinder search found before its time or node budget
+ * ran out. The start cells most likely to lead to words are searched first,
+ * so a search cut short still finds most of the words on the board.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public final class PartialResults {
+    /**
+     * Words found, in alphabetical order
+     */
+    private final Collection<String> words;
+
+    /**
+     * Whether the search finished before its budget ran out
+     */
+    private final boolean complete;
+
+    /**
+     * Number of start cells searched to the end
+     */
+    private final int cellsFinished;
+
+    /**
+     * Number of start cells the search had to cover
+     */
+    private final int cells;
+
+    /**
+     * Holds the results of a budgeted search
+     * @param words Words found, in alphabetical order
+     * @param complete Whether the search finished before its budget ran out
+     * @param cellsFinished Number of start cells searched to the end
+     * @param cells Number of start cells the search had to cover
+     */
+    PartialResults(Collection<String> words, boolean complete, int cellsFinished, int cells) {
+        this.words = words;
+        this.complete = complete;
+        this.cellsFinished = cellsFinished;
+        this.cells = cells;
+    }
+
+    /**
+     * Returns the words found
+     * @return Words found, in alphabetical order
+     */
+    public Collection<String> getWords() {
+        return words;
+    }
+
+    /**
+     * Checks if every word on the board was found
+     * @return <tt>true</tt> if the search finished before its budget ran out
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Returns the number of start cells searched to the end, so every word
+     * starting on them was found
+     * @return Start cells finished
+     */
+    public int getCellsFinished() {
+        return cellsFinished;
+    }
+
+    /**
+     * Returns the number of start cells the search had to cover
+     * @return Start cells on the board
+     */
+    public int getCells() {
+        return cells;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d words, %s (%,d of %,d start cells finished)", words.size(),
+                complete ? "complete" : "cut short", cellsFinished, cells);
+    }
+}
@@ -0,0 +1,105 @@
+package lab6.guswilerib;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+
+/**
+ * Prints how far a search has got every so often from a thread of its own,
+ * so the search itself never stops to print. Each report is taken from the
+ * finder's metrics, which the search threads update once per start cell.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public class ProgressReporter implements Closeable {
+    /**
+     * Finder whose search is reported on
+     */
+    private final WordFinder finder;
+
+    /**
+     * Where the reports are printed
+     */
+    private final PrintStream out;
+
+    /**
+     * Milliseconds between reports
+     */
+    private final long intervalMillis;
+
+    /**
+     * Thread printing the reports
+     */
+    private final Thread reporter;
+
+    /**
+     * Set once the search is done and the reports should stop
+     */
+    private volatile boolean done;
+
+    /**
+     * Starts reporting on a finder's search
+     * @param finder Finder whose search is reported on
+     * @param out Where the reports are printed
+     * @param intervalMillis Milliseconds between reports
+     */
+    public ProgressReporter(WordFinder finder, PrintStream out, long intervalMillis) {
+        this.finder = finder;
+        this.out = out;
+        this.intervalMillis = intervalMillis;
+        reporter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                report();
+            }
+        }, "search-progress");
+        reporter.setDaemon(true);
+        reporter.start();
+    }
+
+    /**
+     * Prints a report every interval until the search is done
+     */
+    private void report() {
+        synchronized(this) {
+            while(!done) {
+                try {
+                    wait(intervalMillis);
+                } catch(InterruptedException e) {
+                    return;
+                }
+                if(!done) {
+                    print(finder.getMetrics());
+                }
+            }
+        }
+    }
+
+    /**
+     * Prints one report
+     * @param metrics Metrics of the search so far
+     */
+    private void print(SearchMetrics metrics) {
+        out.println(String.format("Searched %,d of %,d start cells (%.0f%% done), %,d nodes, %,d words",
+                metrics.getCellsSearched(), metrics.getCells(),
+                100.0 * metrics.getCellsSearched() / Math.max(metrics.getCells(), 1),
+                metrics.getNodesVisited(), metrics.getWordsFound()));
+    }
+
+    /**
+     * Stops the reports and prints a last one for the finished search
+     */
+    @Override
+    public void close() {
+        synchronized(this) {
+            done = true;
+            notifyAll();
+        }
+        try {
+            reporter.join();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        print(finder.getMetrics());
+    }
+}
@@ -0,0 +1,332 @@
+package lab6.guswilerib;
+
+import lab6.GamePiece;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Remembers the words found on recently searched game boards, so a board that
+ * comes up again is not searched again. Boards are looked up by their letters,
+ * the topology and the version of the dictionary, so a cached result is never
+ * handed out after the dictionary has changed.<br />
+ * <br />
+ * When every rotation and mirror image of a board has the same words, which
+ * is the case for the topologies that treat all directions alike (see
+ * {@link Topology#isSymmetric()}), the board is first turned into whichever
+ * of its eight symmetries comes first, so a board and its rotated or mirrored
+ * copies share one entry.<br />
+ * <br />
+ * The cache holds a fixed number of boards and evicts the least recently used
+ * one to make room. It can be shared by several threads. Two threads missing
+ * on the same board at once both search it.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public class ResultCache {
+    /**
+     * Number of boards held at most
+     */
+    private final int capacity;
+
+    /**
+     * Number of worker threads each search is run with
+     */
+    private final int parallelism;
+
+    /**
+     * Words found on each board held, least recently used first
+     */
+    private final Map<Key, Collection<String>> entries;
+
+    /**
+     * Number of lookups that found their board
+     */
+    private long hits;
+
+    /**
+     * Number of lookups that had to search their board
+     */
+    private long misses;
+
+    /**
+     * Number of boards evicted to make room
+     */
+    private long evictions;
+
+    /**
+     * Creates an empty cache
+     * @param capacity Number of boards held at most
+     * @param parallelism Number of worker threads each search is run with
+     */
+    public ResultCache(int capacity, int parallelism) {
+        if(capacity < 1) {
+            throw new IllegalArgumentException("The cache must hold at least one board: " + capacity);
+        }
+        this.capacity = capacity;
+        this.parallelism = parallelism;
+        entries = new LinkedHashMap<Key, Collection<String>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Collection<String>> eldest) {
+                boolean full = size() > ResultCache.this.capacity;
+                if(full) {
+                    ++evictions;
+                }
+                return full;
+            }
+        };
+    }
+
+    /**
+     * Returns the words on a game board, searching it with a WordFinder only
+     * if neither it nor one of its symmetries is held
+     * @param gameBoard The game board to be searched
+     * @param rows Number of rows in game board
+     * @param cols Number of columns in game board
+     * @param dictionary A collection of correctly spelled words
+     * @param topology Moves allowed between the game pieces of a word
+     * @return Read-only collection of the words on the board, in alphabetical order
+     */
+    public Collection<String> search(List<GamePiece<Character>> gameBoard, int rows, int cols,
+                                     Dictionary dictionary, Topology topology) {
+        Collection<String> words = get(gameBoard, rows, cols, dictionary, topology);
+        if(words == null) {
+            WordFinder finder = new WordFinder(gameBoard, dictionary, rows, cols, topology);
+            finder.startSearching(parallelism);
+            words = put(gameBoard, rows, cols, dictionary, topology, finder.getResults());
+        }
+        return words;
+    }
+
+    /**
+     * Returns the words on a game board if it or one of its symmetries is
+     * held, for callers that search the boards missing from the cache
+     * themselves and hand the words found to {@link #put}
+     * @param gameBoard The game board to be looked up
+     * @param rows Number of rows in game board
+     * @param cols Number of columns in game board
+     * @param dictionary A collection of correctly spelled words
+     * @param topology Moves allowed between the game pieces of a word
+     * @return Read-only collection of the words on the board, in alphabetical order,
+     *         or null if the board is not held
+     */
+    public Collection<String> get(List<GamePiece<Character>> gameBoard, int rows, int cols,
+                                  Dictionary dictionary, Topology topology) {
+        Key key = key(gameBoard, rows, cols, dictionary, topology);
+        synchronized(entries) {
+            Collection<String> words = entries.get(key);
+            if(words != null) {
+                ++hits;
+            } else {
+                ++misses;
+            }
+            return words;
+        }
+    }
+
+    /**
+     * Holds the words found on a game board that was searched outside the cache
+     * @param gameBoard The game board that was searched
+     * @param rows Number of rows in game board
+     * @param cols Number of columns in game board
+     * @param dictionary The dictionary the board was searched with, or the one a
+     *                   filtered dictionary was made from, since both find the same words
+     * @param topology Moves allowed between the game pieces of a word
+     * @param words The words found on the board, which are copied
+     * @return Read-only collection of the words on the board, in alphabetical order
+     */
+    public Collection<String> put(List<GamePiece<Character>> gameBoard, int rows, int cols,
+                                  Dictionary dictionary, Topology topology, Collection<String> words) {
+        Key key = key(gameBoard, rows, cols, dictionary, topology);
+        Collection<String> held = Collections.unmodifiableCollection(new TreeSet<>(words));
+        synchronized(entries) {
+            entries.put(key, held);
+        }
+        return held;
+    }
+
+    /**
+     * Creates the key a game board is held under
+     * @param gameBoard The game board
+     * @param rows Number of rows in game board
+     * @param cols Number of columns in game board
+     * @param dictionary A collection of correctly spelled words
+     * @param topology Moves allowed between the game pieces of a word
+     * @return The key of the board, shared by its symmetries when the topology treats them alike
+     */
+    private static Key key(List<GamePiece<Character>> gameBoard, int rows, int cols, Dictionary dictionary,
+                           Topology topology) {
+        char[] letters = new char[gameBoard.size()];
+        for(int i = 0; i < letters.length; ++i) {
+            letters[i] = gameBoard.get(i).getElement();
+        }
+        return topology.isSymmetric() ? Key.canonical(letters, rows, cols, dictionary, topology)
+                : new Key(new String(letters), rows, dictionary.getVersion(), topology);
+    }
+
+    /**
+     * Forgets every board held. The statistics are kept.
+     */
+    public void clear() {
+        synchronized(entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Returns the number of boards held
+     * @return Number of boards
+     */
+    public int size() {
+        synchronized(entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns the number of lookups that found their board
+     * @return Number of hits
+     */
+    public long getHits() {
+        synchronized(entries) {
+            return hits;
+        }
+    }
+
+    /**
+     * Returns the number of lookups that had to search their board
+     * @return Number of misses
+     */
+    public long getMisses() {
+        synchronized(entries) {
+            return misses;
+        }
+    }
+
+    /**
+     * Returns the number of boards evicted to make room for others
+     * @return Number of evictions
+     */
+    public long getEvictions() {
+        synchronized(entries) {
+            return evictions;
+        }
+    }
+
+    /**
+     * Returns the share of lookups that found their board
+     * @return Hits divided by lookups, or 0 before the first lookup
+     */
+    public double getHitRate() {
+        synchronized(entries) {
+            return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized(entries) {
+            return String.format("%,d of %,d boards held, %,d hits, %,d misses (%.1f%% hits), %,d evictions",
+                    entries.size(), capacity, hits, misses, getHitRate() * 100, evictions);
+        }
+    }
+
+    /**
+     * What a board is looked up by
+     */
+    private static final class Key {
+        /**
+         * Letters of the board, row by row
+         */
+        private final String letters;
+
+        /**
+         * Number of rows of the board
+         */
+        private final int rows;
+
+        /**
+         * Version of the dictionary the board was searched with
+         */
+        private final long version;
+
+        /**
+         * Moves allowed between the game pieces of a word
+         */
+        private final Topology topology;
+
+        /**
+         * Creates a key
+         * @param letters Letters of the board, row by row
+         * @param rows Number of rows of the board
+         * @param version Version of the dictionary the board was searched with
+         * @param topology Moves allowed between the game pieces of a word
+         */
+        private Key(String letters, int rows, long version, Topology topology) {
+            this.letters = letters;
+            this.rows = rows;
+            this.version = version;
+            this.topology = topology;
+        }
+
+        /**
+         * Creates the key of whichever of the eight rotations and mirror
+         * images of a board comes first, by number of rows and then by letters
+         * @param letters Letters of the board, row by row
+         * @param rows Number of rows of the board
+         * @param cols Number of columns of the board
+         * @param dictionary Dictionary the board is searched with
+         * @param topology Moves allowed between the game pieces of a word
+         * @return The key shared by the board and its symmetries
+         */
+        private static Key canonical(char[] letters, int rows, int cols, Dictionary dictionary, Topology topology) {
+            String best = null;
+            int bestRows = 0;
+            char[] turned = new char[letters.length];
+            // Every symmetry of a rectangle is an optional transpose followed by optional flips
+            for(int symmetry = 0; symmetry < 8; ++symmetry) {
+                boolean transpose = (symmetry & 4) != 0;
+                boolean flipRows = (symmetry & 2) != 0;
+                boolean flipCols = (symmetry & 1) != 0;
+                int newRows = transpose ? cols : rows;
+                int newCols = transpose ? rows : cols;
+                if(best != null && newRows > bestRows) {
+                    continue;
+                }
+                for(int i = 0; i < newRows; ++i) {
+                    for(int j = 0; j < newCols; ++j) {
+                        int a = flipRows ? newRows - 1 - i : i;
+                        int b = flipCols ? newCols - 1 - j : j;
+                        turned[i * newCols + j] = transpose ? letters[b * cols + a] : letters[a * cols + b];
+                    }
+                }
+                String candidate = new String(turned);
+                if(best == null || newRows < bestRows || candidate.compareTo(best) < 0) {
+                    best = candidate;
+                    bestRows = newRows;
+                }
+            }
+            return new Key(best, bestRows, dictionary.getVersion(), topology);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if(!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return rows == key.rows && version == key.version && letters.equals(key.letters)
+                    && topology.equals(key.topology);
+        }
+
+        @Override
+        public int hashCode() {
+            return (letters.hashCode() * 31 + rows) * 31 + Long.hashCode(version);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package lab6.guswilerib;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for writing the results of a search out.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+@Name("lab6.ResultOutput")
+@Label("Result Output")
+@Category("Word Search")
+@Description("Writing the words found by a search")
+public class ResultOutputEvent extends Event {
+    /**
+     * Where the results were written
+     */
+    @Label("Destination")
+    public String destination;
+
+    /**
+     * Number of words written
+     */
+    @Label("Words")
+    public int words;
+}
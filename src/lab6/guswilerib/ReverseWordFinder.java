@@ -0,0 +1,251 @@
+package lab6.guswilerib;
+
+import lab6.GamePiece;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Finds words the other way around from the WordFinder: instead of wandering
+ * the board and asking the dictionary about every path, it takes each word in
+ * the dictionary and looks for it on the board, starting only from the game
+ * pieces that hold its first letter. This is much cheaper when the dictionary
+ * is small and the board is large, or when the dictionary cannot tell the
+ * WordFinder which paths to give up on.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public class ReverseWordFinder implements WordSearchEngine {
+    /**
+     * Dictionary of words to look for
+     */
+    private final Dictionary dictionary;
+
+    /**
+     * Letter on each game piece, as it appears on the board
+     */
+    private final char[] letters;
+
+    /**
+     * Letter on each game piece in lower case, as it appears in the dictionary
+     */
+    private final char[] lowerLetters;
+
+    /**
+     * Indexes of the neighbors of each game piece
+     */
+    private final int[][] neighbors;
+
+    /**
+     * Indexes of the game pieces holding each lower case letter
+     */
+    private final Map<Character, int[]> cellsByLetter = new HashMap<>();
+
+    /**
+     * Whether the same letter appears on the board in both upper and lower case,
+     * in which case every spelling of a word has to be found, not just the first
+     */
+    private final boolean mixedCase;
+
+    /**
+     * Words found on the game board that are in the dictionary
+     */
+    private final Collection<String> foundWords = new TreeSet<>();
+
+    /**
+     * Words found by the running search, which are the found words unless streaming
+     */
+    private Collection<String> found = foundWords;
+
+    /**
+     * Where the running search sends new words, or null if it only collects them
+     */
+    private WordSink sink;
+
+    /**
+     * Set to stop the running search, either by the sink or by {@link #cancel()}
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a reverse word finder
+     * @param gameBoard The game board to be searched
+     * @param dictionary The words to look for
+     * @param rows Number of rows in game board
+     * @param cols Number of columns in game board
+     * @param topology Moves allowed between the game pieces of a word
+     */
+    public ReverseWordFinder(List<GamePiece<Character>> gameBoard, Dictionary dictionary, int rows, int cols,
+                             Topology topology) {
+        this.dictionary = dictionary;
+        letters = new char[gameBoard.size()];
+        lowerLetters = new char[gameBoard.size()];
+        Map<Character, List<Integer>> cells = new HashMap<>();
+        for(int i = 0; i < letters.length; ++i) {
+            letters[i] = gameBoard.get(i).getElement();
+            lowerLetters[i] = Character.toLowerCase(letters[i]);
+            List<Integer> sameLetter = cells.get(lowerLetters[i]);
+            if(sameLetter == null) {
+                sameLetter = new ArrayList<>();
+                cells.put(lowerLetters[i], sameLetter);
+            }
+            sameLetter.add(i);
+        }
+        for(Map.Entry<Character, List<Integer>> entry : cells.entrySet()) {
+            int[] indexes = new int[entry.getValue().size()];
+            for(int i = 0; i < indexes.length; ++i) {
+                indexes[i] = entry.getValue().get(i);
+            }
+            cellsByLetter.put(entry.getKey(), indexes);
+        }
+        neighbors = topology.neighbors(rows, cols);
+        boolean mixed = false;
+        Map<Character, Character> spelling = new HashMap<>();
+        for(int i = 0; i < letters.length && !mixed; ++i) {
+            Character previous = spelling.put(lowerLetters[i], letters[i]);
+            mixed = previous != null && previous != letters[i];
+        }
+        mixedCase = mixed;
+    }
+
+    /**
+     * Looks for every word of the dictionary on the game board
+     */
+    @Override
+    public void startSearching() {
+        found = foundWords;
+        sink = null;
+        search();
+    }
+
+    /**
+     * Looks for every word of the dictionary on the game board, handing each
+     * word to the sink as soon as it is found instead of keeping it for getResults
+     * @param sink Where the words found are sent, which can cancel the search
+     */
+    @Override
+    public void startSearching(WordSink sink) {
+        found = new HashSet<>();
+        this.sink = sink;
+        try {
+            search();
+        } finally {
+            found = foundWords;
+            this.sink = null;
+        }
+    }
+
+    /**
+     * Stops a search running on another thread. The search returns soon
+     * after, with the words found so far.
+     */
+    @Override
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Looks for every word of the dictionary on the game board until done or cancelled
+     */
+    private void search() {
+        cancelled = false;
+        boolean[] visited = new boolean[letters.length];
+        int[] path = new int[WordFinder.MAX_WORD_LENGTH];
+        for(Iterator<String> words = dictionary.getWords().iterator(); words.hasNext() && !cancelled; ) {
+            String word = words.next();
+            if(word.length() >= WordFinder.MIN_WORD_LENGTH && word.length() <= WordFinder.MAX_WORD_LENGTH) {
+                search(word, visited, path);
+            }
+        }
+    }
+
+    /**
+     * Looks for one word on the game board and records it if it is there
+     * @param word Word to look for, as it appears in the dictionary
+     * @param visited Visited flags for the game pieces, all clear
+     * @param path Buffer for the game pieces spelling the word
+     * @return <tt>true</tt> if the word was found
+     */
+    private boolean search(String word, boolean[] visited, int[] path) {
+        int before = found.size();
+        int[] starts = cellsByLetter.get(word.charAt(0));
+        boolean done = false;
+        for(int i = 0; starts != null && i < starts.length && !done; ++i) {
+            done = spells(word, 0, starts[i], visited, path);
+        }
+        return found.size() > before;
+    }
+
+    /**
+     * Checks if the rest of a word can be spelled starting at a game piece
+     * @param word Word being looked for
+     * @param index Index of the letter of the word that should be on the game piece
+     * @param cell Index of the game piece
+     * @param visited Game pieces already used by the path so far
+     * @param path Game pieces used by the path so far
+     * @return <tt>true</tt> if the word was spelled and no other spelling needs to be looked for
+     */
+    private boolean spells(String word, int index, int cell, boolean[] visited, int[] path) {
+        if(visited[cell] || lowerLetters[cell] != word.charAt(index)) {
+            return false;
+        }
+        path[index] = cell;
+        if(index == word.length() - 1) {
+            char[] spelling = new char[word.length()];
+            for(int i = 0; i < spelling.length; ++i) {
+                spelling[i] = letters[path[i]];
+            }
+            String spelled = new String(spelling);
+            if(found.add(spelled) && sink != null && !sink.accept(spelled)) {
+                cancelled = true;
+            }
+            return !mixedCase || cancelled;
+        }
+        visited[cell] = true;
+        boolean spelled = false;
+        for(int i = 0; i < neighbors[cell].length && !spelled && !cancelled; ++i) {
+            spelled = spells(word, index + 1, neighbors[cell][i], visited, path);
+        }
+        visited[cell] = false;
+        return spelled;
+    }
+
+    /**
+     * Looks for some words on the game board, whether or not they are in the
+     * dictionary, without adding them to the results. Each word costs one
+     * search from the game pieces holding its first letter, so this is how a
+     * few words added to or removed from the dictionary are checked against a
+     * board that has already been searched.
+     * @param words Words to look for, as they appear in the dictionary
+     * @return Every spelling of the words found on the board
+     */
+    public Collection<String> spellings(Collection<String> words) {
+        found = new TreeSet<>();
+        sink = null;
+        cancelled = false;
+        try {
+            boolean[] visited = new boolean[letters.length];
+            int[] path = new int[WordFinder.MAX_WORD_LENGTH];
+            for(String word : words) {
+                if(word.length() >= WordFinder.MIN_WORD_LENGTH && word.length() <= WordFinder.MAX_WORD_LENGTH) {
+                    search(word, visited, path);
+                }
+            }
+            return found;
+        } finally {
+            found = foundWords;
+        }
+    }
+
+    @Override
+    public Collection<String> getResults() {
+        return foundWords;
+    }
+}
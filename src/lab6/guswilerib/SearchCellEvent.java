@@ -0,0 +1,56 @@
+package lab6.guswilerib;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for searching every word that starts on one game
+ * piece. One is committed per start cell, so slow cells of a slow grid can be
+ * picked out afterwards. Start cells can take only microseconds, so no stack
+ * trace is taken; it would always be the same one anyway.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+@Name("lab6.SearchCell")
+@Label("Search Start Cell")
+@Category("Word Search")
+@Description("Searching for every word that starts on one game piece")
+@StackTrace(false)
+@Threshold("0 ms")
+class SearchCellEvent extends Event {
+    /**
+     * Row of the start cell
+     */
+    @Label("Row")
+    int row;
+
+    /**
+     * Column of the start cell
+     */
+    @Label("Column")
+    int col;
+
+    /**
+     * Letter on the start cell
+     */
+    @Label("Letter")
+    char letter;
+
+    /**
+     * Prefixes stepped onto while searching from the cell
+     */
+    @Label("Nodes Visited")
+    long nodesVisited;
+
+    /**
+     * Words found from the cell that had not already been found
+     */
+    @Label("Words Found")
+    int wordsFound;
+}
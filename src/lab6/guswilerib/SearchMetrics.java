@@ -0,0 +1,217 @@
+package lab6.guswilerib;
+
+import java.util.Arrays;
+
+/**
+ * What a WordFinder search did, as of the moment the metrics were taken.
+ * Every search thread keeps its own counters and adds them to the finder's
+ * totals each time it finishes a start cell, so taking metrics during a
+ * search shows the start cells finished so far.<br />
+ * <br />
+ * A node is a prefix the search stepped onto, a lookup is one question put
+ * to the dictionary (does a word start with this prefix, or is this prefix a
+ * word) and a prune is a prefix lookup that missed, cutting off every path
+ * through it.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public final class SearchMetrics {
+    /**
+     * Number of prefixes the search stepped onto
+     */
+    private final long nodesVisited;
+
+    /**
+     * Number of prefix lookups that found no word starting with the prefix
+     */
+    private final long prunes;
+
+    /**
+     * Number of word lookups that found the prefix in the dictionary
+     */
+    private final long wordHits;
+
+    /**
+     * Number of word lookups that did not find the prefix in the dictionary
+     */
+    private final long wordMisses;
+
+    /**
+     * Length of the longest prefix the search stepped onto
+     */
+    private final int maxDepth;
+
+    /**
+     * Number of distinct words the search added to the finder's results
+     */
+    private final int wordsFound;
+
+    /**
+     * Number of start cells finished
+     */
+    private final int cellsSearched;
+
+    /**
+     * Number of start cells the search was given
+     */
+    private final int cells;
+
+    /**
+     * Nanoseconds spent searching from each start cell, 0 for cells not yet finished
+     */
+    private final long[] cellNanos;
+
+    /**
+     * Nanoseconds since the search started, or its length once it has finished
+     */
+    private final long elapsedNanos;
+
+    /**
+     * Creates a snapshot of the metrics
+     * @param nodesVisited Number of prefixes the search stepped onto
+     * @param prunes Number of prefix lookups that missed
+     * @param wordHits Number of word lookups that hit
+     * @param wordMisses Number of word lookups that missed
+     * @param maxDepth Length of the longest prefix stepped onto
+     * @param wordsFound Number of distinct words added to the finder's results
+     * @param cellsSearched Number of start cells finished
+     * @param cells Number of start cells the search was given
+     * @param cellNanos Nanoseconds spent on each start cell, which the snapshot keeps
+     * @param elapsedNanos Nanoseconds since the search started
+     */
+    SearchMetrics(long nodesVisited, long prunes, long wordHits, long wordMisses, int maxDepth,
+                  int wordsFound, int cellsSearched, int cells, long[] cellNanos, long elapsedNanos) {
+        this.nodesVisited = nodesVisited;
+        this.prunes = prunes;
+        this.wordHits = wordHits;
+        this.wordMisses = wordMisses;
+        this.maxDepth = maxDepth;
+        this.wordsFound = wordsFound;
+        this.cellsSearched = cellsSearched;
+        this.cells = cells;
+        this.cellNanos = cellNanos;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the number of prefixes the search stepped onto
+     * @return Nodes visited
+     */
+    public long getNodesVisited() {
+        return nodesVisited;
+    }
+
+    /**
+     * Returns the number of questions put to the dictionary
+     * @return Prefix and word lookups
+     */
+    public long getLookups() {
+        return getLookupHits() + getLookupMisses();
+    }
+
+    /**
+     * Returns the number of lookups that found what they looked for
+     * @return Prefix lookups that led to a node plus word lookups that found a word
+     */
+    public long getLookupHits() {
+        return nodesVisited + wordHits;
+    }
+
+    /**
+     * Returns the number of lookups that did not find what they looked for
+     * @return Prefix lookups that pruned plus word lookups that found no word
+     */
+    public long getLookupMisses() {
+        return prunes + wordMisses;
+    }
+
+    /**
+     * Returns the number of prefixes no word starts with, each of which cut off the paths through it
+     * @return Prune events
+     */
+    public long getPrunes() {
+        return prunes;
+    }
+
+    /**
+     * Returns the length of the longest prefix the search stepped onto
+     * @return Maximum depth reached
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Returns the number of distinct words the search found that the finder
+     * had not found before. Words found by an earlier search of the same
+     * finder are not counted again.
+     * @return Words found
+     */
+    public int getWordsFound() {
+        return wordsFound;
+    }
+
+    /**
+     * Returns the number of start cells finished
+     * @return Start cells searched
+     */
+    public int getCellsSearched() {
+        return cellsSearched;
+    }
+
+    /**
+     * Returns the number of start cells the search was given, which is less
+     * than the number on the board when it searched a range of them
+     * @return Start cells to search
+     */
+    public int getCells() {
+        return cells;
+    }
+
+    /**
+     * Returns the time spent searching from each start cell
+     * @return Nanoseconds per start cell, row by row, 0 for cells not yet finished
+     */
+    public long[] getCellNanos() {
+        return Arrays.copyOf(cellNanos, cellNanos.length);
+    }
+
+    /**
+     * Returns the time since the search started
+     * @return Nanoseconds since the search started, or its length once it has finished
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d of %,d cells, %,d nodes, %,d lookups (%,d hits, %,d misses), %,d prunes, "
+                        + "depth %d, %,d words in %.3f ms", cellsSearched, cells, nodesVisited,
+                getLookups(), getLookupHits(), getLookupMisses(), prunes, maxDepth, wordsFound, elapsedNanos / 1e6);
+    }
+
+    /**
+     * Formats the metrics as a JSON object
+     * @return the JSON text
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"nodesVisited\": ").append(nodesVisited)
+                .append(", \"lookups\": ").append(getLookups())
+                .append(", \"lookupHits\": ").append(getLookupHits())
+                .append(", \"lookupMisses\": ").append(getLookupMisses())
+                .append(", \"prunes\": ").append(prunes)
+                .append(", \"maxDepth\": ").append(maxDepth)
+                .append(", \"wordsFound\": ").append(wordsFound)
+                .append(", \"cellsSearched\": ").append(cellsSearched)
+                .append(", \"cells\": ").append(cells)
+                .append(", \"elapsedNanos\": ").append(elapsedNanos)
+                .append(", \"cellNanos\": [");
+        for(int i = 0; i < cellNanos.length; i++) {
+            json.append(i == 0 ? "" : ", ").append(cellNanos[i]);
+        }
+        return json.append("]}").toString();
+    }
+}
@@ -0,0 +1,320 @@
+package lab6.guswilerib;
+
+import lab6.GamePiece;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Picks the cheaper way to search a board: wandering the board and checking
+ * paths against the dictionary (WordFinder), or looking for each dictionary
+ * word on the board (ReverseWordFinder).<br />
+ * <br />
+ * Both costs are estimated as the number of partial paths each engine would
+ * try. Letters are assumed to be spread evenly over the board, so a path
+ * spelling a prefix is expected to grow into a path spelling the prefix plus
+ * the next letter (average number of neighbors) * (share of game pieces holding
+ * that letter) times. The reverse engine tries the paths for every prefix of
+ * every word, while the board engine tries the paths for every distinct prefix
+ * once (when the dictionary can rule prefixes out) plus one step per game
+ * piece, or every path up to the maximum word length when it cannot. A step
+ * of the board engine costs more than a step of the reverse engine, since it
+ * looks the letter up in the dictionary rather than comparing it with the next
+ * letter of a word, and much more when the dictionary is not a word graph.<br />
+ * <br />
+ * The prefixes of the dictionary's words are gathered into a table once for
+ * each version of the dictionary and kept for later plans, so planning a board
+ * takes one pass over the prefixes that can be spelled with its letters rather
+ * than a pass over every letter of every word.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public class SearchPlanner {
+    /**
+     * Relative cost of one step of the WordFinder when it walks a word graph,
+     * against one step of the ReverseWordFinder
+     */
+    private static final double GRAPH_STEP_COST = 3;
+
+    /**
+     * Relative cost of one step of the WordFinder when it has to build a String
+     * for every lookup, against one step of the ReverseWordFinder
+     */
+    private static final double STRING_STEP_COST = 15;
+
+    /**
+     * Letters below this are looked up in an array rather than a map
+     */
+    private static final int ASCII = 128;
+
+    /**
+     * Prefix tables of the dictionaries planned for, each for the version of the words it was built from
+     */
+    private static final Map<Dictionary, Prefixes> PREFIXES = new WeakHashMap<>();
+
+    /**
+     * Estimated number of partial paths tried by the WordFinder
+     */
+    private final double boardDrivenCost;
+
+    /**
+     * Estimated number of partial paths tried by the ReverseWordFinder
+     */
+    private final double wordDrivenCost;
+
+    /**
+     * Estimates the cost of both engines for a board and dictionary
+     * @param gameBoard The game board to be searched
+     * @param dictionary The words to look for
+     * @param rows Number of rows in game board
+     * @param cols Number of columns in game board
+     * @param topology Moves allowed between the game pieces of a word
+     */
+    public SearchPlanner(List<GamePiece<Character>> gameBoard, Dictionary dictionary, int rows, int cols,
+                         Topology topology) {
+        int cells = gameBoard.size();
+        double[] asciiShare = new double[ASCII];
+        Map<Character, Double> share = new HashMap<>();
+        for(GamePiece<Character> piece : gameBoard) {
+            char letter = Character.toLowerCase(piece.getElement());
+            if(letter < ASCII) {
+                asciiShare[letter] += 1.0 / cells;
+            } else {
+                Double count = share.get(letter);
+                share.put(letter, (count == null ? 0 : count) + 1.0 / cells);
+            }
+        }
+        double degree = averageDegree(topology.neighbors(rows, cols));
+
+        // Each prefix is expected to be spelled by as many paths as its parent
+        // times the chance of stepping onto its last letter. A prefix no path
+        // spells is skipped along with every longer prefix below it.
+        Prefixes prefixes = prefixes(dictionary);
+        double wordCost = prefixes.words;
+        double boardCost = cells;
+        boolean prunes = dictionary.supportsPrefixes();
+        double[] paths = new double[prefixes.size];
+        for(int i = 0; i < prefixes.size; ) {
+            char letter = prefixes.letters[i];
+            Double letterShare = letter < ASCII ? null : share.get(letter);
+            int parent = prefixes.parents[i];
+            double expected = (parent < 0 ? cells : paths[parent])
+                    * (letter < ASCII ? asciiShare[letter] : letterShare == null ? 0 : letterShare)
+                    * (parent < 0 ? 1 : degree);
+            if(expected > 0) {
+                paths[i] = expected;
+                wordCost += prefixes.wordsBelow[i] * expected;
+                if(parent >= 0) {
+                    boardCost += expected;
+                }
+                ++i;
+            } else {
+                i = prefixes.subtreeEnds[i];
+            }
+        }
+        if(!prunes) {
+            double lookup = dictionary.hasFastLookup() ? 1 : Math.max(dictionary.size(), 1);
+            double allPaths = 0;
+            double level = cells;
+            for(int i = 0; i < WordFinder.MAX_WORD_LENGTH && level > 0; ++i) {
+                allPaths += level;
+                level *= Math.max(degree - i, 0);
+            }
+            boardCost = allPaths * lookup * STRING_STEP_COST;
+        } else {
+            boardCost *= dictionary.getWordGraph() != null ? GRAPH_STEP_COST : STRING_STEP_COST;
+        }
+        boardDrivenCost = boardCost;
+        wordDrivenCost = wordCost;
+    }
+
+    /**
+     * Creates the cheaper engine for a board and dictionary
+     * @param gameBoard The game board to be searched
+     * @param dictionary The words to look for
+     * @param rows Number of rows in game board
+     * @param cols Number of columns in game board
+     * @param topology Moves allowed between the game pieces of a word
+     * @return The engine expected to search the board fastest
+     */
+    public static WordSearchEngine plan(List<GamePiece<Character>> gameBoard, Dictionary dictionary, int rows,
+                                        int cols, Topology topology) {
+        SearchPlanner planner = new SearchPlanner(gameBoard, dictionary, rows, cols, topology);
+        return planner.prefersWordDriven()
+                ? new ReverseWordFinder(gameBoard, dictionary, rows, cols, topology)
+                : new WordFinder(gameBoard, dictionary, rows, cols, topology);
+    }
+
+    /**
+     * Checks which engine is expected to be cheaper
+     * @return <tt>true</tt> if looking for each word is expected to beat wandering the board
+     */
+    public boolean prefersWordDriven() {
+        return wordDrivenCost < boardDrivenCost;
+    }
+
+    /**
+     * Returns the estimated cost of the WordFinder
+     * @return Estimated number of partial paths tried
+     */
+    public double getBoardDrivenCost() {
+        return boardDrivenCost;
+    }
+
+    /**
+     * Returns the estimated cost of the ReverseWordFinder
+     * @return Estimated number of partial paths tried
+     */
+    public double getWordDrivenCost() {
+        return wordDrivenCost;
+    }
+
+    /**
+     * Returns the average number of neighbors of a game piece
+     * @param neighbors Neighbor table of the board
+     * @return Average number of neighbors, or 0 for an empty board
+     */
+    private static double averageDegree(int[][] neighbors) {
+        long total = 0;
+        for(int[] cellNeighbors : neighbors) {
+            total += cellNeighbors.length;
+        }
+        return neighbors.length == 0 ? 0 : (double) total / neighbors.length;
+    }
+
+    /**
+     * Returns the prefix table of a dictionary, building it if the dictionary
+     * is new to the planner or has changed since its table was built
+     * @param dictionary The words to look for
+     * @return Prefix table of the current version of the words
+     */
+    private static Prefixes prefixes(Dictionary dictionary) {
+        long version = dictionary.getVersion();
+        synchronized(PREFIXES) {
+            Prefixes prefixes = PREFIXES.get(dictionary);
+            if(prefixes == null || prefixes.version != version) {
+                prefixes = new Prefixes(version, dictionary);
+                PREFIXES.put(dictionary, prefixes);
+            }
+            return prefixes;
+        }
+    }
+
+    /**
+     * Returns the length of the longest common prefix of two words
+     * @param first First word
+     * @param second Second word
+     * @param length Most letters to compare
+     * @return Number of leading letters the words share
+     */
+    private static int commonPrefix(String first, String second, int length) {
+        length = Math.min(length, Math.min(first.length(), second.length()));
+        int i = 0;
+        while(i < length && first.charAt(i) == second.charAt(i)) {
+            ++i;
+        }
+        return i;
+    }
+
+    /**
+     * The distinct prefixes of a dictionary's words up to the maximum word
+     * length, in depth first order so each prefix comes after the one it
+     * extends and before every prefix that extends it
+     */
+    private static final class Prefixes {
+        /**
+         * Version of the words the table was built from
+         */
+        private final long version;
+
+        /**
+         * Number of words in the dictionary
+         */
+        private final int words;
+
+        /**
+         * Number of prefixes in the table
+         */
+        private int size;
+
+        /**
+         * Last letter of each prefix
+         */
+        private char[] letters = new char[1024];
+
+        /**
+         * Index of the prefix each prefix extends by one letter, or -1 for a single letter
+         */
+        private int[] parents = new int[1024];
+
+        /**
+         * Number of words of a length the search finds that start with each prefix
+         */
+        private int[] wordsBelow = new int[1024];
+
+        /**
+         * Index one past the last prefix that starts with each prefix
+         */
+        private int[] subtreeEnds = new int[1024];
+
+        /**
+         * Builds the table with one pass over the words, sorting them first if
+         * the dictionary does not keep them in alphabetical order
+         * @param version Version of the words
+         * @param dictionary The words to look for
+         */
+        private Prefixes(long version, Dictionary dictionary) {
+            this.version = version;
+            Iterable<String> sorted = dictionary.getWords();
+            if(!dictionary.supportsPrefixes()) {
+                String[] unsorted = dictionary.getWords().toArray(new String[0]);
+                Arrays.sort(unsorted);
+                sorted = Arrays.asList(unsorted);
+            }
+            int count = 0;
+            int[] open = new int[WordFinder.MAX_WORD_LENGTH];
+            int depth = 0;
+            String previous = "";
+            for(String word : sorted) {
+                ++count;
+                int length = Math.min(word.length(), WordFinder.MAX_WORD_LENGTH);
+                int shared = commonPrefix(previous, word, depth);
+                while(depth > shared) {
+                    subtreeEnds[open[--depth]] = size;
+                }
+                for(; depth < length; ++depth) {
+                    grow();
+                    letters[size] = word.charAt(depth);
+                    parents[size] = depth == 0 ? -1 : open[depth - 1];
+                    open[depth] = size++;
+                }
+                if(word.length() >= WordFinder.MIN_WORD_LENGTH && word.length() <= WordFinder.MAX_WORD_LENGTH) {
+                    for(int i = 0; i < length; ++i) {
+                        ++wordsBelow[open[i]];
+                    }
+                }
+                previous = word;
+            }
+            while(depth > 0) {
+                subtreeEnds[open[--depth]] = size;
+            }
+            words = count;
+        }
+
+        /**
+         * Makes room for one more prefix
+         */
+        private void grow() {
+            if(size == letters.length) {
+                letters = Arrays.copyOf(letters, size * 2);
+                parents = Arrays.copyOf(parents, size * 2);
+                wordsBelow = Arrays.copyOf(wordsBelow, size * 2);
+                subtreeEnds = Arrays.copyOf(subtreeEnds, size * 2);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package lab6.guswilerib;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for a pathological part of a search: the words that
+ * start with one two letter path, when searching them takes longer than the
+ * event's threshold. Below the threshold nothing is recorded, so the event
+ * can stay on in a continuous recording.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+@Name("lab6.SearchSubtree")
+@Label("Slow Search Subtree")
+@Category("Word Search")
+@Description("Searching the words that start with one two letter path took longer than the threshold")
+@StackTrace(false)
+@Threshold("10 ms")
+class SearchSubtreeEvent extends Event {
+    /**
+     * Row of the first game piece of the path
+     */
+    @Label("Start Row")
+    int row;
+
+    /**
+     * Column of the first game piece of the path
+     */
+    @Label("Start Column")
+    int col;
+
+    /**
+     * Row of the second game piece of the path
+     */
+    @Label("Next Row")
+    int nextRow;
+
+    /**
+     * Column of the second game piece of the path
+     */
+    @Label("Next Column")
+    int nextCol;
+
+    /**
+     * Letters on the path, as they appear on the board
+     */
+    @Label("Prefix")
+    String prefix;
+
+    /**
+     * Prefixes stepped onto below the path
+     */
+    @Label("Nodes Visited")
+    long nodesVisited;
+}
@@ -0,0 +1,64 @@
+package lab6.guswilerib;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Iterates over a copy of the words of a collection, so the collection can be
+ * changed while it is iterated over, but removes words from the collection
+ * itself rather than from the copy.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+final class SnapshotIterator implements Iterator<String> {
+    /**
+     * Collection the words were copied from, which remove changes
+     */
+    private final Collection<String> owner;
+
+    /**
+     * Copy of the words being iterated over
+     */
+    private final Iterator<String> words;
+
+    /**
+     * Word last returned by next, or null if there is none to remove
+     */
+    private String last;
+
+    /**
+     * Creates an iterator over a copy of a collection's words
+     * @param owner collection the words were copied from
+     * @param words copy of the words, in the order they are to be returned
+     */
+    SnapshotIterator(Collection<String> owner, List<String> words) {
+        this.owner = owner;
+        this.words = words.iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return words.hasNext();
+    }
+
+    @Override
+    public String next() {
+        last = words.next();
+        return last;
+    }
+
+    /**
+     * Removes the word last returned by next from the collection
+     * @throws IllegalStateException if next has not been called, or the word has already been removed
+     */
+    @Override
+    public void remove() {
+        if(last == null) {
+            throw new IllegalStateException("No word to remove.");
+        }
+        owner.remove(last);
+        last = null;
+    }
+}
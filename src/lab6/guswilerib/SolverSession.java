@@ -0,0 +1,150 @@
+package lab6.guswilerib;
+
+import lab6.GamePiece;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * A dictionary and the game boards that have been solved against it, kept up
+ * to date as words are added to or removed from the dictionary. Each board is
+ * searched once in full. After that, words added to the dictionary are looked
+ * for on each board one by one, and words removed from it are dropped from
+ * each board's results, so an update costs about the same however large the
+ * dictionary and the boards are.<br />
+ * <br />
+ * Every method runs one at a time, so a session can be shared by several
+ * threads.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public class SolverSession {
+    /**
+     * Dictionary every board is solved against
+     */
+    private final Dictionary dictionary;
+
+    /**
+     * Moves allowed between the game pieces of a word
+     */
+    private final Topology topology;
+
+    /**
+     * Each board held, keyed by the game pieces it was solved with
+     */
+    private final Map<List<GamePiece<Character>>, SolvedBoard> boards = new IdentityHashMap<>();
+
+    /**
+     * Creates a session
+     * @param dictionary Dictionary every board is solved against, which must only
+     *                   be changed through this session from now on
+     * @param topology Moves allowed between the game pieces of a word
+     */
+    public SolverSession(Dictionary dictionary, Topology topology) {
+        this.dictionary = dictionary;
+        this.topology = topology;
+    }
+
+    /**
+     * Solves a game board and holds on to it, so its results are updated
+     * whenever the dictionary changes. Solving a board that is already held
+     * returns its current results without searching it again.
+     * @param gameBoard The game board to be searched, which must not change while held
+     * @param rows Number of rows in game board
+     * @param cols Number of columns in game board
+     * @return Read-only copy of the words on the board, in alphabetical order,
+     *         as of this call. Later changes to the dictionary are not seen in
+     *         it; solve the board again to get them.
+     */
+    public synchronized Collection<String> solve(List<GamePiece<Character>> gameBoard, int rows, int cols) {
+        SolvedBoard board = boards.get(gameBoard);
+        if(board == null) {
+            WordFinder finder = new WordFinder(gameBoard, dictionary, rows, cols, topology);
+            finder.startSearching(1);
+            board = new SolvedBoard(new ReverseWordFinder(gameBoard, dictionary, rows, cols, topology),
+                    new TreeSet<>(finder.getResults()));
+            boards.put(gameBoard, board);
+        }
+        return Collections.unmodifiableCollection(new TreeSet<>(board.results));
+    }
+
+    /**
+     * Stops holding a game board
+     * @param gameBoard The game pieces the board was solved with
+     * @return <tt>true</tt> if the board was held
+     */
+    public synchronized boolean forget(List<GamePiece<Character>> gameBoard) {
+        return boards.remove(gameBoard) != null;
+    }
+
+    /**
+     * Returns the number of game boards held
+     * @return Number of boards
+     */
+    public synchronized int size() {
+        return boards.size();
+    }
+
+    /**
+     * Adds words to the dictionary and looks for just those words on every
+     * board held, adding any found to the board's results
+     * @param words Words to be added
+     * @return Number of words that were not already in the dictionary
+     */
+    public synchronized int addWords(Collection<String> words) {
+        List<String> added = dictionary.addWords(words);
+        if(!added.isEmpty()) {
+            for(SolvedBoard board : boards.values()) {
+                board.results.addAll(board.finder.spellings(added));
+            }
+        }
+        return added.size();
+    }
+
+    /**
+     * Removes words from the dictionary and drops them from the results of
+     * every board held. Only the removed words are looked for, to find how
+     * they are spelled on each board.
+     * @param words Words to be removed
+     * @return Number of words that were in the dictionary
+     */
+    public synchronized int removeWords(Collection<String> words) {
+        List<String> removed = dictionary.removeWords(words);
+        if(!removed.isEmpty()) {
+            for(SolvedBoard board : boards.values()) {
+                board.results.removeAll(board.finder.spellings(removed));
+            }
+        }
+        return removed.size();
+    }
+
+    /**
+     * A game board held by the session
+     */
+    private static final class SolvedBoard {
+        /**
+         * Finds given words on the board
+         */
+        private final ReverseWordFinder finder;
+
+        /**
+         * Words on the board
+         */
+        private final Collection<String> results;
+
+        /**
+         * Holds a solved board
+         * @param finder Finds given words on the board
+         * @param results Words on the board
+         */
+        private SolvedBoard(ReverseWordFinder finder, Collection<String> results) {
+            this.finder = finder;
+            this.results = results;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package lab6.guswilerib;
+
+import java.util.Arrays;
+
+/**
+ * Describes which game pieces can follow one another in a word. A topology is
+ * a set of moves (row and column offsets) from a game piece to its neighbors,
+ * and is turned into a table listing the neighbors of every game piece once
+ * per board so that the search never has to check whether a move stays on the
+ * board.<br />
+ * <br />
+ * Hex boards are stored as rows of a rectangular grid where every odd row is
+ * shifted half a game piece to the right, so odd and even rows have different
+ * moves to the rows above and below them.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public final class Topology {
+    /**
+     * Up, down, left and right
+     */
+    public static final Topology FOUR_WAY = new Topology("4-way", new int[][]{
+            {0, 1}, {0, -1}, {1, 0}, {-1, 0}}, false);
+
+    /**
+     * Up, down, left, right and the four diagonals
+     */
+    public static final Topology EIGHT_WAY = new Topology("8-way", new int[][]{
+            {0, 1}, {0, -1}, {1, 0}, {-1, 0}, {1, 1}, {-1, -1}, {1, -1}, {-1, 1}}, false);
+
+    /**
+     * The six neighbors of a hex board with odd rows shifted to the right
+     */
+    public static final Topology HEX = new Topology("hex", new int[][]{
+            {0, 1}, {0, -1}, {1, 0}, {-1, 0}, {1, -1}, {-1, -1}},
+            new int[][]{{0, 1}, {0, -1}, {1, 0}, {-1, 0}, {1, 1}, {-1, 1}}, false);
+
+    /**
+     * The eight moves of a chess knight
+     */
+    public static final Topology KNIGHT = new Topology("knight", new int[][]{
+            {1, 2}, {2, 1}, {-1, 2}, {-2, 1}, {1, -2}, {2, -1}, {-1, -2}, {-2, -1}}, false);
+
+    /**
+     * Name of the topology
+     */
+    private final String name;
+
+    /**
+     * Moves from a game piece in an even row, as {row offset, column offset}
+     */
+    private final int[][] evenRowMoves;
+
+    /**
+     * Moves from a game piece in an odd row, as {row offset, column offset}
+     */
+    private final int[][] oddRowMoves;
+
+    /**
+     * Whether moves off one edge of the board come back on the opposite edge
+     */
+    private final boolean wraps;
+
+    /**
+     * Creates a topology with the same moves from every row
+     * @param name name of the topology
+     * @param moves moves as {row offset, column offset}
+     * @param wraps true if moves off the board wrap around to the opposite edge
+     */
+    private Topology(String name, int[][] moves, boolean wraps) {
+        this(name, moves, moves, wraps);
+    }
+
+    /**
+     * Creates a topology with different moves from even and odd rows
+     * @param name name of the topology
+     * @param evenRowMoves moves from even rows as {row offset, column offset}
+     * @param oddRowMoves moves from odd rows as {row offset, column offset}
+     * @param wraps true if moves off the board wrap around to the opposite edge
+     */
+    private Topology(String name, int[][] evenRowMoves, int[][] oddRowMoves, boolean wraps) {
+        this.name = name;
+        this.evenRowMoves = evenRowMoves;
+        this.oddRowMoves = oddRowMoves;
+        this.wraps = wraps;
+    }
+
+    /**
+     * Creates a topology from a custom set of moves
+     * @param name name of the topology
+     * @param moves moves as {row offset, column offset}
+     * @return the topology
+     * @throws IllegalArgumentException if a move does not have exactly two offsets
+     */
+    public static Topology of(String name, int[][] moves) {
+        int[][] copy = new int[moves.length][];
+        for(int i = 0; i < moves.length; i++) {
+            if(moves[i].length != 2) {
+                throw new IllegalArgumentException("Each move needs a row and a column offset: "
+                        + Arrays.toString(moves[i]));
+            }
+            copy[i] = moves[i].clone();
+        }
+        return new Topology(name, copy, false);
+    }
+
+    /**
+     * Finds one of the topologies defined here, or its toroidal version, by name
+     * @param name name of the topology, as returned by toString
+     * @return the topology
+     * @throws IllegalArgumentException if no topology defined here has the name
+     */
+    public static Topology forName(String name) {
+        for(Topology topology : new Topology[]{FOUR_WAY, EIGHT_WAY, HEX, KNIGHT}) {
+            if(topology.name.equals(name)) {
+                return topology;
+            } else if(topology.wrapped().name.equals(name)) {
+                return topology.wrapped();
+            }
+        }
+        throw new IllegalArgumentException("Unknown topology: " + name);
+    }
+
+    /**
+     * Returns a topology with the same moves where moves off one edge of the
+     * board come back on the opposite edge
+     * @return the toroidal version of this topology
+     */
+    public Topology wrapped() {
+        return wraps ? this : new Topology(name + " toroidal", evenRowMoves, oddRowMoves, true);
+    }
+
+    /**
+     * Returns whether moves off one edge of the board come back on the opposite edge
+     * @return true if the topology wraps around
+     */
+    public boolean wraps() {
+        return wraps;
+    }
+
+    /**
+     * Returns the furthest a single move goes up or down. A word that starts
+     * on a row never reaches further from it than this times one less than its
+     * length, unless the topology wraps around.
+     * @return largest row offset of any move, ignoring its sign
+     */
+    public int maxRowStep() {
+        int step = 0;
+        for(int[][] moves : new int[][][]{evenRowMoves, oddRowMoves}) {
+            for(int[] move : moves) {
+                step = Math.max(step, Math.abs(move[0]));
+            }
+        }
+        return step;
+    }
+
+    /**
+     * Lists the neighbors of every game piece on a board. Game pieces are
+     * numbered row by row, and a game piece is never its own neighbor or
+     * listed twice as the neighbor of another (which can happen when a small
+     * board wraps around).
+     * @param rows number of rows on the board
+     * @param cols number of columns on the board
+     * @return for each game piece, the indexes of its neighbors
+     */
+    public int[][] neighbors(int rows, int cols) {
+        int[][] table = new int[rows * cols][];
+        int[] found = new int[Math.max(evenRowMoves.length, oddRowMoves.length)];
+        for(int row = 0; row < rows; row++) {
+            int[][] moves = row % 2 == 0 ? evenRowMoves : oddRowMoves;
+            for(int col = 0; col < cols; col++) {
+                int cell = row * cols + col;
+                int count = 0;
+                for(int[] move : moves) {
+                    int r = row + move[0];
+                    int c = col + move[1];
+                    if(wraps) {
+                        r = Math.floorMod(r, rows);
+                        c = Math.floorMod(c, cols);
+                    }
+                    if(r >= 0 && r < rows && c >= 0 && c < cols) {
+                        int neighbor = r * cols + c;
+                        if(neighbor != cell && indexOf(found, count, neighbor) < 0) {
+                            found[count++] = neighbor;
+                        }
+                    }
+                }
+                table[cell] = Arrays.copyOf(found, count);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Checks if every rotation and mirror image of a board has the same words
+     * as the board itself, which is the case when turning or flipping the set
+     * of moves gives back the same set and every row has the same moves
+     * @return true if the moves are the same under all eight symmetries of a square
+     */
+    public boolean isSymmetric() {
+        if(!sameMoves(evenRowMoves, oddRowMoves)) {
+            return false;
+        }
+        int[][] turned = new int[evenRowMoves.length][];
+        int[][] flipped = new int[evenRowMoves.length][];
+        for(int i = 0; i < evenRowMoves.length; i++) {
+            turned[i] = new int[]{evenRowMoves[i][1], -evenRowMoves[i][0]};
+            flipped[i] = new int[]{evenRowMoves[i][0], -evenRowMoves[i][1]};
+        }
+        // A quarter turn and a mirror image between them make all eight symmetries
+        return sameMoves(evenRowMoves, turned) && sameMoves(evenRowMoves, flipped);
+    }
+
+    /**
+     * Checks if a topology has the same name and moves as this one
+     * @param other object to compare to
+     * @return true if the other object is a topology with the same name and moves
+     */
+    @Override
+    public boolean equals(Object other) {
+        if(!(other instanceof Topology)) {
+            return false;
+        }
+        Topology topology = (Topology) other;
+        return name.equals(topology.name) && wraps == topology.wraps
+                && Arrays.deepEquals(evenRowMoves, topology.evenRowMoves)
+                && Arrays.deepEquals(oddRowMoves, topology.oddRowMoves);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode() * 31 + Arrays.deepHashCode(evenRowMoves);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Checks if two lists of moves hold the same moves, in any order
+     * @param moves first list of moves
+     * @param others second list of moves
+     * @return true if every move of each list is in the other
+     */
+    private static boolean sameMoves(int[][] moves, int[][] others) {
+        return contains(moves, others) && contains(others, moves);
+    }
+
+    /**
+     * Checks if every move of one list is in another
+     * @param moves list to look in
+     * @param wanted moves to look for
+     * @return true if every wanted move is in the list
+     */
+    private static boolean contains(int[][] moves, int[][] wanted) {
+        for(int[] move : wanted) {
+            boolean found = false;
+            for(int i = 0; i < moves.length && !found; i++) {
+                found = Arrays.equals(moves[i], move);
+            }
+            if(!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds a value among the first entries of an array
+     * @param values array to search
+     * @param count number of entries in use
+     * @param value value to search for
+     * @return index of the value, or -1 if it is not there
+     */
+    private static int indexOf(int[] values, int count, int value) {
+        for(int i = 0; i < count; i++) {
+            if(values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,448 @@
+package lab6.guswilerib;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Prefix tree of words that can be used as the collection behind a dictionary.
+ * The nodes are kept in parallel arrays rather than as objects: each node has
+ * a letter, a link to its first child and a link to its next sibling. Siblings
+ * are kept in alphabetical order so the words come back out sorted.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public class Trie extends AbstractCollection<String> implements WordGraph {
+    /**
+     * Number of node slots allocated when the trie is created or cleared
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Letter on the edge leading into each node
+     */
+    private char[] label;
+
+    /**
+     * Index of the first child of each node, or NO_NODE if it has none
+     */
+    private int[] firstChild;
+
+    /**
+     * Index of the next sibling of each node, or NO_NODE if it is the last one
+     */
+    private int[] nextSibling;
+
+    /**
+     * Whether the path to each node spells a word
+     */
+    private boolean[] word;
+
+    /**
+     * Number of nodes in use, including the root
+     */
+    private int nodeCount;
+
+    /**
+     * Number of words stored in the trie
+     */
+    private int size;
+
+    /**
+     * Number of words at or below each node, or null if words have been added
+     * since they were last counted. Volatile so that a thread that sees the
+     * counts also sees them filled in.
+     */
+    private volatile int[] wordCount;
+
+    /**
+     * Letters after each node in the longest word through it, or null if
+     * words have been added since they were last measured
+     */
+    private volatile int[] height;
+
+    /**
+     * Creates an empty trie
+     */
+    public Trie(){
+        clear();
+    }
+
+    @Override
+    public int root(){
+        return 0;
+    }
+
+    @Override
+    public int child(int node, char letter){
+        int current = firstChild[node];
+        while(current != NO_NODE && label[current] < letter){
+            current = nextSibling[current];
+        }
+        return current != NO_NODE && label[current] == letter ? current : NO_NODE;
+    }
+
+    @Override
+    public boolean isWord(int node){
+        return word[node];
+    }
+
+    /**
+     * Adds a word to the trie
+     * @param value word to be added
+     * @return true if the word was not already in the trie
+     */
+    @Override
+    public boolean add(String value){
+        int node = root();
+        for(int i = 0; i < value.length(); i++){
+            node = findOrCreateChild(node, value.charAt(i));
+        }
+        boolean added = !word[node];
+        if(added){
+            word[node] = true;
+            size++;
+            wordCount = null;
+            height = null;
+        }
+        return added;
+    }
+
+    /**
+     * Removes a word from the trie. Nodes left with no word at or below them
+     * are unlinked from their parents, so the prefixes only the word used are
+     * no longer found by child. Their slots are not reused until the trie is
+     * cleared.
+     * @param target word to be removed
+     * @return true if the word was in the trie
+     */
+    @Override
+    public boolean remove(Object target){
+        if(!(target instanceof CharSequence)){
+            return false;
+        }
+        CharSequence letters = (CharSequence) target;
+        int[] path = new int[letters.length() + 1];
+        path[0] = root();
+        for(int i = 0; i < letters.length(); i++){
+            path[i + 1] = child(path[i], letters.charAt(i));
+            if(path[i + 1] == NO_NODE){
+                return false;
+            }
+        }
+        int node = path[letters.length()];
+        if(!word[node]){
+            return false;
+        }
+        word[node] = false;
+        size--;
+        wordCount = null;
+        height = null;
+        for(int i = letters.length(); i > 0 && !word[path[i]] && firstChild[path[i]] == NO_NODE; i--){
+            unlinkChild(path[i - 1], path[i]);
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a word is in the trie
+     * @param target word to be searched for
+     * @return true if the word was found
+     */
+    @Override
+    public boolean contains(Object target){
+        if(!(target instanceof CharSequence)){
+            return false;
+        }
+        int node = walk((CharSequence) target);
+        return node != NO_NODE && word[node];
+    }
+
+    @Override
+    public int wordId(char[] letters, int length){
+        int[] counts = wordCounts();
+        int node = root();
+        int id = 0;
+        for(int i = 0; i < length; i++){
+            if(word[node]){
+                id++;
+            }
+            int current = firstChild[node];
+            while(current != NO_NODE && label[current] < letters[i]){
+                id += counts[current];
+                current = nextSibling[current];
+            }
+            if(current == NO_NODE || label[current] != letters[i]){
+                return -1;
+            }
+            node = current;
+        }
+        return word[node] ? id : -1;
+    }
+
+    @Override
+    public int wordsBefore(int node, char letter){
+        int[] counts = wordCounts();
+        int id = word[node] ? 1 : 0;
+        for(int current = firstChild[node]; current != NO_NODE && label[current] < letter;
+                current = nextSibling[current]){
+            id += counts[current];
+        }
+        return id;
+    }
+
+    @Override
+    public int height(int node){
+        int[] heights = height;
+        if(heights == null){
+            synchronized(this){
+                heights = height;
+                if(heights == null){
+                    // Children are created after their parents, as in wordCounts
+                    heights = new int[nodeCount];
+                    for(int parent = nodeCount - 1; parent >= 0; parent--){
+                        for(int current = firstChild[parent]; current != NO_NODE; current = nextSibling[current]){
+                            heights[parent] = Math.max(heights[parent], heights[current] + 1);
+                        }
+                    }
+                    height = heights;
+                }
+            }
+        }
+        return heights[node];
+    }
+
+    /**
+     * Checks if any word in the trie starts with the specified prefix
+     * @param prefix letters the word must start with
+     * @return true if at least one word starts with the prefix
+     */
+    public boolean hasPrefix(CharSequence prefix){
+        return walk(prefix) != NO_NODE;
+    }
+
+    /**
+     * Returns the words in the trie in alphabetical order. The iterator walks a
+     * copy of the words, so the trie may change while it is in use, and its
+     * remove takes the word out of the trie.
+     * @return iterator over the words
+     */
+    @Override
+    public Iterator<String> iterator(){
+        List<String> words = new ArrayList<>(size);
+        collect(root(), new StringBuilder(), words);
+        return new SnapshotIterator(this, words);
+    }
+
+    /**
+     * Removes each of the words given from the trie
+     * @param words words to be removed
+     * @return true if any of the words was in the trie
+     */
+    @Override
+    public boolean removeAll(Collection<?> words){
+        boolean removed = false;
+        for(Object target : words){
+            removed |= remove(target);
+        }
+        return removed;
+    }
+
+    /**
+     * Removes every word from the trie that is not among the words given
+     * @param words words to be kept
+     * @return true if any word was removed
+     */
+    @Override
+    public boolean retainAll(Collection<?> words){
+        boolean removed = false;
+        for(String target : this){
+            if(!words.contains(target)){
+                removed |= remove(target);
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Removes every word from the trie and releases its nodes
+     */
+    @Override
+    public void clear(){
+        label = new char[INITIAL_CAPACITY];
+        firstChild = new int[INITIAL_CAPACITY];
+        nextSibling = new int[INITIAL_CAPACITY];
+        word = new boolean[INITIAL_CAPACITY];
+        nodeCount = 0;
+        size = 0;
+        wordCount = null;
+        height = null;
+        newNode('\0');
+    }
+
+    /**
+     * Returns the number of nodes in use, including the root
+     * @return number of nodes
+     */
+    int nodeCount(){
+        return nodeCount;
+    }
+
+    /**
+     * Returns the first child of a node
+     * @param node node to look under
+     * @return index of the first child, or NO_NODE if it has none
+     */
+    int firstChild(int node){
+        return firstChild[node];
+    }
+
+    /**
+     * Returns the next sibling of a node
+     * @param node node to look beside
+     * @return index of the next sibling, or NO_NODE if it is the last one
+     */
+    int nextSibling(int node){
+        return nextSibling[node];
+    }
+
+    /**
+     * Returns the letter on the edge leading into a node
+     * @param node node to look at
+     * @return letter of the node
+     */
+    char label(int node){
+        return label[node];
+    }
+
+    /**
+     * Returns the number of words at or below each node, counting them if
+     * words have been added since the last time. Children are always created
+     * after their parents, so counting from the last node back to the root
+     * sees every child before its parent. Safe to call from several searching
+     * threads at once.
+     * @return number of words at or below each node
+     */
+    private int[] wordCounts(){
+        int[] counts = wordCount;
+        if(counts == null){
+            synchronized(this){
+                counts = wordCount;
+                if(counts == null){
+                    counts = new int[nodeCount];
+                    for(int node = nodeCount - 1; node >= 0; node--){
+                        counts[node] = word[node] ? 1 : 0;
+                        for(int current = firstChild[node]; current != NO_NODE; current = nextSibling[current]){
+                            counts[node] += counts[current];
+                        }
+                    }
+                    wordCount = counts;
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Follows a sequence of letters from the root
+     * @param letters letters to follow
+     * @return the node reached, or NO_NODE if no word starts with the letters
+     */
+    private int walk(CharSequence letters){
+        int node = root();
+        for(int i = 0; i < letters.length() && node != NO_NODE; i++){
+            node = child(node, letters.charAt(i));
+        }
+        return node;
+    }
+
+    /**
+     * Finds the child of a node with the given letter, inserting it into the
+     * sibling list in alphabetical order if it is not there yet
+     * @param parent node to look under
+     * @param letter letter of the child
+     * @return index of the child node
+     */
+    private int findOrCreateChild(int parent, char letter){
+        int previous = NO_NODE;
+        int current = firstChild[parent];
+        while(current != NO_NODE && label[current] < letter){
+            previous = current;
+            current = nextSibling[current];
+        }
+        if(current != NO_NODE && label[current] == letter){
+            return current;
+        }
+        int created = newNode(letter);
+        nextSibling[created] = current;
+        if(previous == NO_NODE){
+            firstChild[parent] = created;
+        } else {
+            nextSibling[previous] = created;
+        }
+        return created;
+    }
+
+    /**
+     * Takes a node out of the sibling list of its parent
+     * @param parent node the child is under
+     * @param child node to be taken out
+     */
+    private void unlinkChild(int parent, int child){
+        if(firstChild[parent] == child){
+            firstChild[parent] = nextSibling[child];
+        } else {
+            int previous = firstChild[parent];
+            while(nextSibling[previous] != child){
+                previous = nextSibling[previous];
+            }
+            nextSibling[previous] = nextSibling[child];
+        }
+    }
+
+    /**
+     * Allocates a node with no children, growing the arrays if they are full
+     * @param letter letter on the edge leading into the node
+     * @return index of the new node
+     */
+    private int newNode(char letter){
+        if(nodeCount == label.length){
+            int capacity = label.length * 2;
+            label = Arrays.copyOf(label, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            word = Arrays.copyOf(word, capacity);
+        }
+        label[nodeCount] = letter;
+        firstChild[nodeCount] = NO_NODE;
+        nextSibling[nodeCount] = NO_NODE;
+        word[nodeCount] = false;
+        return nodeCount++;
+    }
+
+    /**
+     * Adds every word below a node to a list, in alphabetical order
+     * @param node node to start from
+     * @param prefix letters on the path to the node
+     * @param words list the words are added to
+     */
+    private void collect(int node, StringBuilder prefix, List<String> words){
+        if(word[node]){
+            words.add(prefix.toString());
+        }
+        for(int current = firstChild[node]; current != NO_NODE; current = nextSibling[current]){
+            prefix.append(label[current]);
+            collect(current, prefix, words);
+            prefix.setLength(prefix.length() - 1);
+        }
+    }
+}
@@ -3,19 +3,34 @@ package lab6.guswilerib;
 import lab6.GamePiece;
 import lab6.UI;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This is the powerhouse of the application. This is where all the recursing
  * and calculating takes place. This class also
  * contains methods to recurse through, access, and manipulate the search grid
- * of GridEntries.
+ * of GridEntries.<br />
+ * <br />
+ * Words may be added to or removed from the dictionary between searches, but
+ * not while one is running: a search that collects word IDs throws a
+ * ConcurrentModificationException when it finds the dictionary has changed.
  * @author taylor [based on a similar class by hornick]
  * @version 2015.04.21
  */
-public class WordFinder {
+public class WordFinder implements WordSearchEngine {
     /**
      * Controls whether or not the GUI is displayed.
      */
@@ -32,6 +47,22 @@ public class WordFinder {
      */
     public static final int MIN_WORD_LENGTH = 3;
 
+    /**
+     * Milliseconds between the progress reports of {@link #startSearching()}
+     */
+    private static final long PROGRESS_MILLIS = 1000;
+
+    /**
+     * Nodes a thread of a budgeted search steps onto between checks of the budget
+     */
+    private static final int BUDGET_CHECK_NODES = 256;
+
+    /**
+     * Number of chunks of start cells per worker thread in a parallel search,
+     * enough for a worker that finishes early to help with the rest
+     */
+    private static final int CHUNKS_PER_WORKER = 8;
+
     /**
      * Dictionary of words known to be spelled correctly
      */
@@ -47,6 +78,26 @@ public class WordFinder {
      */
     private final Collection<String> foundWords;
 
+    /**
+     * IDs of the words found on the game board, or null if the search adds the
+     * words themselves to foundWords. Used when the dictionary is a word graph
+     * and each letter appears on the board in only one case, so that a word
+     * has only one spelling on the board. Set to null for good once the
+     * dictionary changes, since the IDs no longer fit its words.
+     */
+    private WordIdSet foundIds;
+
+    /**
+     * Version of the dictionary the found IDs belong to
+     */
+    private final long idsVersion;
+
+    /**
+     * Words whose IDs are in foundIds but which have not been added to
+     * foundWords yet. Each word is in here once, in the order it was found.
+     */
+    private final List<String> newWords = new ArrayList<>();
+
     /**
      * Number of rows on the game board
      */
@@ -58,9 +109,124 @@ public class WordFinder {
     private final int cols;
 
     /**
-     * The word that is currently being built by the word finder
+     * Letter on each game piece, as it appears on the board
+     */
+    private final char[] letters;
+
+    /**
+     * Letter on each game piece in lower case, as it appears in the dictionary
+     */
+    private final char[] lowerLetters;
+
+    /**
+     * Word graph behind the dictionary, or null if the dictionary is not backed by one
+     */
+    private final WordGraph graph;
+
+    /**
+     * Moves allowed between the game pieces of a word
+     */
+    private final Topology topology;
+
+    /**
+     * Indexes of the neighbors of each game piece, as laid out by the topology
+     */
+    private final int[][] neighbors;
+
+    /**
+     * Set to stop the search, either by a sink or by {@link #cancel()}
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * Whether the current search stops once its budget runs out, see {@link #searchWithin(int, long, long)}
+     */
+    private boolean budgeted;
+
+    /**
+     * When the current budgeted search must stop, from System.nanoTime
+     */
+    private long deadline;
+
+    /**
+     * Whether the current budgeted search has a deadline
+     */
+    private boolean hasDeadline;
+
+    /**
+     * Most nodes the current budgeted search may step onto
      */
-    private String currWord = "";
+    private long nodeLimit;
+
+    /**
+     * Nodes the threads of the current budgeted search have stepped onto, as of their last budget checks
+     */
+    private final AtomicLong nodesSpent = new AtomicLong();
+
+    /**
+     * Guards the metrics totals below, which the search threads add to once per start cell
+     */
+    private final Object metricsLock = new Object();
+
+    /**
+     * Prefixes stepped onto by the start cells finished so far
+     */
+    private long nodesVisited;
+
+    /**
+     * Prefix lookups that missed in the start cells finished so far
+     */
+    private long prunes;
+
+    /**
+     * Word lookups that hit in the start cells finished so far
+     */
+    private long wordHits;
+
+    /**
+     * Word lookups that missed in the start cells finished so far
+     */
+    private long wordMisses;
+
+    /**
+     * Longest prefix stepped onto in the start cells finished so far
+     */
+    private int maxDepth;
+
+    /**
+     * Words new to their search's found words in the start cells finished so far
+     */
+    private int wordsFound;
+
+    /**
+     * Number of start cells finished
+     */
+    private int cellsSearched;
+
+    /**
+     * Number of start cells finished without the search being stopped partway through them
+     */
+    private int cellsFinished;
+
+    /**
+     * Number of start cells the current or last search was given
+     */
+    private int searchCells;
+
+    /**
+     * Nanoseconds spent searching from each start cell
+     */
+    private long[] cellNanos = new long[0];
+
+    /**
+     * When the last search started, from System.nanoTime
+     */
+    private long searchStart;
+
+    /**
+     * How long the last search took, or -1 while it is running
+     */
+    private long searchNanos;
 
     /**
      * The graphical user interface that shows the progress of the search
@@ -68,117 +234,257 @@ public class WordFinder {
     private UI gui;
 
     /**
-     * Constructor for this WordFinder
+     * Constructor for this WordFinder. Words may use all eight neighbors of a game piece.
      * @param gameBoard The game board to be searched
      * @param dictionary A collection of correctly spelled words
      * @param rows Number of rows in game board
      * @param cols Number of columns in game board
      */
     public WordFinder(List<GamePiece<Character>> gameBoard, Dictionary dictionary, int rows, int cols) {
+        this(gameBoard, dictionary, rows, cols, Topology.EIGHT_WAY);
+    }
+
+    /**
+     * Constructor for this WordFinder
+     * @param gameBoard The game board to be searched
+     * @param dictionary A collection of correctly spelled words
+     * @param rows Number of rows in game board
+     * @param cols Number of columns in game board
+     * @param topology Moves allowed between the game pieces of a word
+     */
+    public WordFinder(List<GamePiece<Character>> gameBoard, Dictionary dictionary, int rows, int cols,
+                      Topology topology) {
         this.gameBoard = gameBoard;
         this.dictionary = dictionary;
         foundWords = new TreeSet<>();
         this.rows = rows;
         this.cols = cols;
+        letters = new char[gameBoard.size()];
+        lowerLetters = new char[gameBoard.size()];
+        for(int i = 0; i < letters.length; ++i) {
+            letters[i] = gameBoard.get(i).getElement();
+            lowerLetters[i] = Character.toLowerCase(letters[i]);
+        }
+        graph = dictionary.getWordGraph();
+        idsVersion = dictionary.getVersion();
+        foundIds = graph != null && !mixedCase(letters, lowerLetters) ? new WordIdSet(dictionary.size()) : null;
+        this.topology = topology;
+        neighbors = topology.neighbors(rows, cols);
         if(GUI_ENABLED) {
             gui = new UI(gameBoard, rows, cols, 15);
         }
     }
 
-//**********************************************************************
-//  TODO: MODIFY ONLY THE FOLLOWING METHOD (and the call to it
-//  TODO: identified by the TODO below.
-//**********************************************************************
+    /**
+     * Checks if the same letter appears on the board in more than one case
+     * @param letters Letter on each game piece, as it appears on the board
+     * @param lowerLetters Letter on each game piece in lower case
+     * @return <tt>true</tt> if a word can be spelled on the board in more than one way
+     */
+    private static boolean mixedCase(char[] letters, char[] lowerLetters) {
+        Map<Character, Character> spelling = new HashMap<>();
+        for(int i = 0; i < letters.length; ++i) {
+            Character previous = spelling.put(lowerLetters[i], letters[i]);
+            if(previous != null && previous != letters[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * This is the method that calls itself repeatedly to wander it's way through
-     * the game board using the specified search pattern, creating every possibly
+     * the game board using the moves allowed by the topology, creating every possibly
      * letter combination and checking it against a dictionary. If the word is
      * found in the dictionary, it gets added to a collection of found words.
-     * @param row Current row position of cursor
-     * @param col Current column position of cursor
-     * @param do8WaySearch <tt>true</tt> if eight way search is desired,
-     *                     otherwise a four way search is performed
+     * @param state Visited flags, current word and found words of this search
+     * @param cell Index of the game piece under the cursor
      */
-    private void recursiveSearch(int row, int col, boolean do8WaySearch) {
-        // TODO: Remove this line , since it will likely run MANY times
-        //System.out.println("Doing recursive " + (do8WaySearch ? "eight" : "four") + " way search");
-
+    private void recursiveSearch(SearchState state, int cell) {
         // 1. Ensure we should visit this game piece:
-        //  a. row is valid
-        //  b. col is valid
-        //  c. will not exceeded maximum length of word
-        //  d. game piece has not been visited
-        if(row >= 0 && row < rows && col >= 0 && col < cols
-                && !getGamePiece(row,col).hasBeenVisited() && currWord.length() < MAX_WORD_LENGTH) {
-
+        //  a. will not exceeded maximum length of word
+        //  b. game piece has not been visited
+        //  c. some word in the dictionary starts with the letters so far
+        //  The neighbor table only lists game pieces on the board, so the
+        //  row and column never need to be checked.
+        int node;
+        if(state.length < MAX_WORD_LENGTH && !state.visited[cell] && !stopped(state)
+                && (node = nextNode(state, cell)) != WordGraph.NO_NODE) {
 
             // 2. Now we're on a game piece we haven't yet visited on this pass through.
             //    Grab the character on the game piece and append it to the current word
             //    we're building.
-            currWord += getGamePiece(row,col).getElement();
+            state.word[state.length] = letters[cell];
+            state.nodes[++state.length] = node;
+            ++state.nodesVisited;
+            if(state.budgeted && ++state.unspentNodes == BUDGET_CHECK_NODES) {
+                spendBudget(state);
+            }
+            if(state.length > state.maxDepth) {
+                state.maxDepth = state.length;
+            }
 
             // 3. Mark piece as visited. (use method in this class)
-            setVisitedFlag(row,col);
+            setVisitedFlag(state, cell);
 
             // 4. If word is at least three characters, lookup up the
             //    word in the dictionary and add it if found.
-            if(currWord.length() >= MIN_WORD_LENGTH){
-                if(dictionary.contains(currWord.toLowerCase())) {
-                    validWord(currWord);
-                }
+            if(state.length >= MIN_WORD_LENGTH && isWord(state, node)){
+                validWord(state);
             }
 
             // 5. Recursively call this method on the neighboring game pieces
-            //    (either 4 neighbors or eight neighbors, depending on do8WaySearch).
-            recursiveSearch(row, col + 1, do8WaySearch);
-            recursiveSearch(row, col - 1, do8WaySearch);
-            recursiveSearch(row + 1, col, do8WaySearch);
-            recursiveSearch(row - 1, col, do8WaySearch);
-            if(do8WaySearch){
-                recursiveSearch(row + 1, col + 1, do8WaySearch);
-                recursiveSearch(row - 1, col - 1, do8WaySearch);
-                recursiveSearch(row + 1, col - 1, do8WaySearch);
-                recursiveSearch(row - 1, col + 1, do8WaySearch);
+            if(state.length == 1) {
+                searchSubtrees(state, cell);
+            } else {
+                for(int neighbor : neighbors[cell]) {
+                    recursiveSearch(state, neighbor);
+                }
             }
 
             // 6. Start back-tracking after the recursive calls
             //    are finished... Unmark piece to indicate it has
             //    not been visited. (use method in this class)
-            clearVisitedFlag(row, col);
+            clearVisitedFlag(state, cell);
 
             // 7. Strip off the last character added to the word
-            currWord = currWord.substring(0, currWord.length()-1);
+            if(--state.length < state.idLength) {
+                state.idLength = state.length;
+            }
+        }
+    }
+
+    /**
+     * Recursively searches the neighbors of a start cell, timing each one for
+     * the flight recorder. Searches below a two letter path that take longer
+     * than the SearchSubtreeEvent threshold are recorded.
+     * @param state The search, with only the start cell in its current word
+     * @param cell Index of the start cell
+     */
+    private void searchSubtrees(SearchState state, int cell) {
+        for(int neighbor : neighbors[cell]) {
+            SearchSubtreeEvent event = new SearchSubtreeEvent();
+            event.begin();
+            long nodesBefore = state.nodesVisited;
+            recursiveSearch(state, neighbor);
+            event.end();
+            if(event.shouldCommit()) {
+                event.row = cell / cols;
+                event.col = cell % cols;
+                event.nextRow = neighbor / cols;
+                event.nextCol = neighbor % cols;
+                event.prefix = new String(new char[]{letters[cell], letters[neighbor]});
+                event.nodesVisited = state.nodesVisited - nodesBefore;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Looks up the current word followed by the letter on a game piece. When the
+     * dictionary is backed by a word graph this is a single step from the node
+     * of the current word. Other dictionaries are asked about the whole word,
+     * through a buffer over the lower case word rather than a copy of it. Either
+     * way the lower case letter is added to the lower case word.
+     * @param state The search looking up the word
+     * @param cell Index of the game piece that would be added to the word
+     * @return Node of the longer word in the word graph (0 when the dictionary has
+     *         none), or NO_NODE if no word in the dictionary starts with it
+     */
+    private int nextNode(SearchState state, int cell) {
+        int node;
+        state.lowerWord[state.length] = lowerLetters[cell];
+        if(graph != null) {
+            node = graph.child(state.nodes[state.length], lowerLetters[cell]);
+        } else {
+            node = dictionary.hasPrefix(state.lookup.setLength(state.length + 1)) ? 0 : WordGraph.NO_NODE;
         }
+        if(node == WordGraph.NO_NODE) {
+            ++state.prunes;
+        }
+        return node;
     }
 
-    private void setVisitedFlag(int row, int col) {
-        getGamePiece(row, col).setVisitedFlag();
+    /**
+     * Checks if the current word is in the dictionary
+     * @param state The search that built the word
+     * @param node Node of the current word, as returned by nextNode
+     * @return <tt>true</tt> if the current word is in the dictionary
+     */
+    private boolean isWord(SearchState state, int node) {
+        boolean word = graph != null ? graph.isWord(node)
+                : dictionary.contains(state.lookup.setLength(state.length));
+        if(word) {
+            ++state.wordHits;
+        } else {
+            ++state.wordMisses;
+        }
+        return word;
+    }
+
+    /**
+     * Marks a game piece on the board as visited by a search.
+     * @param state The search visiting the game piece
+     * @param cell Index of the game piece
+     */
+    private void setVisitedFlag(SearchState state, int cell) {
+        state.visited[cell] = true;
         if(GUI_ENABLED) {
-            gui.setVisitedFlag(row, col, currWord, currWord.length());
+            gui.setVisitedFlag(cell / cols, cell % cols, new String(state.word, 0, state.length), state.length);
         }
     }
 
     /**
-     * Removes the visited flag from the game piece at row, col on
-     * the board.
-     * @param row Row in which the game piece is located
-     * @param col Column in which the game piece is located
+     * Removes the visited flag from a game piece on the board.
+     * @param state The search leaving the game piece
+     * @param cell Index of the game piece
      */
-    private void clearVisitedFlag(int row, int col) {
-        getGamePiece(row, col).clearVisitedFlag();
+    private void clearVisitedFlag(SearchState state, int cell) {
+        state.visited[cell] = false;
         if(GUI_ENABLED) {
-            gui.clearVisitedFlag(row, col);
+            gui.clearVisitedFlag(cell / cols, cell % cols);
         }
     }
 
     /**
-     * Record word as a valid word
-     * @param word The word to be recorded as valid
+     * Record the current word as a valid word. When the search collects word
+     * IDs, the ID of each prefix of the current word is kept until the search
+     * backs out of it, so the ID of a word only adds up the letters after the
+     * last word found on its path rather than walking down the word graph
+     * again. A word found before then costs a read of one bit and allocates
+     * nothing. A new word is appended to the found
+     * words, which then only hold new words, so they are sorted once at the end.
+     * @param state The search that found the word
      */
-    private void validWord(String word) {
-        foundWords.add(word);
+    private void validWord(SearchState state) {
+        String word = null;
+        boolean added;
+        if(state.ids != null) {
+            for(int i = state.idLength; i < state.length; ++i) {
+                state.wordIds[i + 1] = state.wordIds[i] + graph.wordsBefore(state.nodes[i], state.lowerWord[i]);
+            }
+            state.idLength = state.length;
+            added = state.ids.add(state.wordIds[state.length]);
+            if(added) {
+                word = new String(state.word, 0, state.length);
+                state.found.add(word);
+            }
+        } else {
+            word = new String(state.word, 0, state.length);
+            added = state.found.add(word);
+        }
+        if(added) {
+            ++state.wordsFound;
+            if(state.sink != null) {
+                synchronized(state.sink) {
+                    if(!cancelled && !state.sink.accept(word)) {
+                        cancelled = true;
+                    }
+                }
+            }
+        }
         if(GUI_ENABLED) {
-            gui.foundWord(word);
+            gui.foundWord(new String(state.word, 0, state.length));
         }
     }
 
@@ -186,33 +492,26 @@ public class WordFinder {
      * This is the starting point for beginning the search. It contains some
      * parameters to track the time and progress of the search on top of what
      * it's really meant for: starting the recursion over for the next letter
-     * once recursion has finished for the one before it.
+     * once recursion has finished for the one before it. Progress is printed
+     * every second by a ProgressReporter thread, so the search never waits on
+     * the console.
      */
+    @Override
     public void startSearching() {
-        double totalTime = 0.0;
-        DecimalFormat time = new DecimalFormat("00");
-        DecimalFormat timeS = new DecimalFormat("00.####");
-        for (int r=0; r<rows; ++r) {
-            for (int c=0; c<cols; ++c) {
-                if(!GUI_ENABLED) {
-                    System.out.print("Searching from " + getGamePiece(r, c).getElement()
-                            + " (" + r + ", " + c + ")... ");
-                }
-                long beginTime = System.currentTimeMillis();
-                clearVisitedFlags();
-
-                // TODO: In call below, true: 8-way search, false: 4-way search
-                recursiveSearch(r, c, true);
-
-                totalTime += (System.currentTimeMillis() - beginTime);
-                if(!GUI_ENABLED) {
-                    System.out.println(time.format(100.0*(r * cols + c + 1)
-                            / gameBoard.size()) + "% done!");
-                }
+        if(GUI_ENABLED) {
+            WordIdSet ids = foundIds();
+            search(1, 0, gameBoard.size(), ids != null ? newWords : foundWords, ids, null, null);
+        } else {
+            ProgressReporter progress = new ProgressReporter(this, System.out, PROGRESS_MILLIS);
+            try {
+                WordIdSet ids = foundIds();
+                search(1, 0, gameBoard.size(), ids != null ? newWords : foundWords, ids, null, null);
+            } finally {
+                progress.close();
             }
-        }
-        if(!GUI_ENABLED) {
-            totalTime = totalTime/1000;
+            DecimalFormat time = new DecimalFormat("00");
+            DecimalFormat timeS = new DecimalFormat("00.####");
+            double totalTime = getMetrics().getElapsedNanos() / 1e9;
             float seconds = (float) (totalTime % 60);
             int minutes = (int) (totalTime % 3600 / 60);
             int hours = (int) (totalTime / 3600);
@@ -222,31 +521,640 @@ public class WordFinder {
     }
 
     /**
-     * Returns the game piece at the specified position
-     * @param row Row of the game board
-     * @param col Column of the game board
-     * @return Returns the requested GamePiece
+     * Searches the board using a pool of worker threads. Each worker has its
+     * own visited flags, word and found words, and takes chunks of start cells
+     * until none are left. The found words are merged once every worker has
+     * finished. The words
+     * found are the same as those found by {@link #startSearching()}.<br />
+     * <br />
+     * Progress is not printed in this mode. With a parallelism of 1 the search
+     * runs on the calling thread without a pool, and since the GUI can only
+     * follow one search at a time, the serial search is run when the GUI is
+     * enabled.
+     * @param parallelism Number of worker threads to search with
+     */
+    public void startSearching(int parallelism) {
+        WordIdSet ids = foundIds();
+        search(parallelism, 0, gameBoard.size(), ids != null ? newWords : foundWords, ids, null, null);
+    }
+
+    /**
+     * Searches for the words that start on a range of game pieces, like
+     * {@link #startSearching(int)}. Words may still wander onto any game piece
+     * on the board, so a board made of a few rows of a larger one, with enough
+     * rows above and below, finds exactly the words that start on those rows.
+     * @param parallelism Number of worker threads to search with
+     * @param fromCell Index of the first game piece words may start on
+     * @param toCell Index one past the last game piece words may start on
+     */
+    public void startSearching(int parallelism, int fromCell, int toCell) {
+        if(fromCell < 0 || toCell > gameBoard.size() || fromCell > toCell) {
+            throw new IndexOutOfBoundsException("Start cells " + fromCell + " to " + toCell
+                    + " are not on a board of " + gameBoard.size() + " game pieces.");
+        }
+        WordIdSet ids = foundIds();
+        search(parallelism, fromCell, toCell, ids != null ? newWords : foundWords, ids, null, null);
+    }
+
+    /**
+     * Searches the board on the calling thread, handing each word to the sink
+     * as soon as it is found. See {@link #startSearching(int, WordSink)}.
+     * @param sink Where the words found are sent, which can cancel the search
+     */
+    @Override
+    public void startSearching(WordSink sink) {
+        startSearching(1, sink);
+    }
+
+    /**
+     * Searches the board like {@link #startSearching(int)}, but hands each word
+     * to the sink as soon as it is found instead of keeping it for getResults.
+     * Each word is handed over once, even when it can be spelled more than one
+     * way, and the sink is never called by two threads at once. The search
+     * waits while the sink works, and stops soon after the sink returns false
+     * or {@link #cancel()} is called. No words are handed over after that.
+     * @param parallelism Number of worker threads to search with
+     * @param sink Where the words found are sent, which can cancel the search
+     */
+    public void startSearching(int parallelism, WordSink sink) {
+        if(foundIds() != null) {
+            search(parallelism, 0, gameBoard.size(), new ArrayList<String>(), new WordIdSet(dictionary.size()),
+                    sink, null);
+        } else {
+            search(parallelism, 0, gameBoard.size(),
+                    Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>()), null, sink, null);
+        }
+    }
+
+    /**
+     * Stops a search running on another thread. The search returns soon
+     * after, with the words found so far.
+     */
+    @Override
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Searches the board until it is done or a budget runs out, whichever
+     * comes first, and returns the words found so far. The budget is checked
+     * every few hundred nodes, so the search stops within a few microseconds
+     * of running out. The start cells are searched in the order that finds the
+     * most words soonest (see {@link #startOrder()}), so a search cut short
+     * has spent its time where the words are. Counting words by their first
+     * two letters takes a pass over the dictionary the first time
+     * it is searched, which comes out of the time budget.<br />
+     * <br />
+     * The words found can also be had from {@link #getResults()} as usual.
+     * @param parallelism Number of worker threads to search with
+     * @param timeoutMillis Milliseconds the search may take, or 0 for no time limit
+     * @param maxNodes Most prefixes the search may step onto, or 0 for no limit
+     * @return The words found, and whether the search finished
+     */
+    public PartialResults searchWithin(int parallelism, long timeoutMillis, long maxNodes) {
+        if(timeoutMillis < 0 || maxNodes < 0) {
+            throw new IllegalArgumentException("The time and node budgets cannot be negative: "
+                    + timeoutMillis + ", " + maxNodes);
+        }
+        hasDeadline = timeoutMillis > 0;
+        deadline = System.nanoTime() + timeoutMillis * 1000000L;
+        nodeLimit = maxNodes > 0 ? maxNodes : Long.MAX_VALUE;
+        nodesSpent.set(0);
+        budgeted = true;
+        try {
+            int[] order = startOrder();
+            WordIdSet ids = foundIds();
+            search(parallelism, 0, order.length, ids != null ? newWords : foundWords, ids, null, order);
+        } finally {
+            budgeted = false;
+        }
+        int finished;
+        synchronized(metricsLock) {
+            finished = cellsFinished;
+        }
+        return new PartialResults(Collections.unmodifiableCollection(getResults()), isComplete(), finished,
+                gameBoard.size());
+    }
+
+    /**
+     * Orders the start cells so the words found early are many and different.
+     * A cell's score is how many words in the dictionary begin with the letter
+     * on it followed by the letter on one of its neighbors, summed over the
+     * neighbors. Cells with the same letter mostly find the same words, so
+     * rather than searching every cell of the best letter first, the best cell
+     * of each letter is searched, then the second best of each, and so on,
+     * with the higher scores first in each round.
+     * @return Index of every game piece, in the order they are to be searched
+     */
+    private int[] startOrder() {
+        long[] byScore = new long[letters.length];
+        for(int cell = 0; cell < letters.length; ++cell) {
+            long words = 0;
+            for(int neighbor : neighbors[cell]) {
+                words += dictionary.countStarts(lowerLetters[cell], lowerLetters[neighbor]);
+            }
+            // Higher scores sort first, and ties keep the board order
+            byScore[cell] = (Integer.MAX_VALUE - Math.min(words, Integer.MAX_VALUE)) << 32 | cell;
+        }
+        Arrays.sort(byScore);
+        Map<Character, Integer> seen = new HashMap<>();
+        long[] byRound = new long[byScore.length];
+        for(int i = 0; i < byScore.length; ++i) {
+            int round = seen.merge(lowerLetters[(int) byScore[i]], 1, Integer::sum);
+            byRound[i] = (long) round << 32 | (int) byScore[i];
+        }
+        Arrays.sort(byRound);
+        int[] order = new int[byRound.length];
+        for(int i = 0; i < byRound.length; ++i) {
+            order[i] = (int) byRound[i];
+        }
+        return order;
+    }
+
+    /**
+     * Checks if the search has been stopped, and if so notes that the start
+     * cell being searched was cut short
+     * @param state The search about to step onto a game piece
+     * @return <tt>true</tt> if the search has been stopped
+     */
+    private boolean stopped(SearchState state) {
+        if(cancelled) {
+            state.cutShort = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the current or last search covered every start cell it was
+     * given without cutting any of them short. A search stopped by
+     * {@link #cancel()}, a sink or a budget is still complete if it had
+     * already done all of its work when it was stopped.
+     * @return <tt>true</tt> if every word the search was after was found
      */
-    private GamePiece<Character> getGamePiece(int row, int col) {
-        return gameBoard.get(row * cols + col);
+    public boolean isComplete() {
+        synchronized(metricsLock) {
+            return searchNanos >= 0 && cellsFinished == searchCells;
+        }
     }
 
     /**
-     * Clears visited flags for all of the game pieces on the game board.
+     * Adds the nodes a thread has stepped onto since its last check to the
+     * budget spent, and stops the search if the budget has run out
+     * @param state The search thread checking the budget
      */
-    private void clearVisitedFlags() {
-        for (GamePiece<Character> g : gameBoard) {
-            g.clearVisitedFlag();
+    private void spendBudget(SearchState state) {
+        long spent = nodesSpent.addAndGet(state.unspentNodes);
+        state.unspentNodes = 0;
+        if(spent >= nodeLimit || hasDeadline && System.nanoTime() - deadline >= 0) {
+            cancelled = true;
         }
     }
 
+    /**
+     * Runs the search for the startSearching methods
+     * @param parallelism Number of worker threads to search with
+     * @param fromCell Index of the first game piece words may start on
+     * @param toCell Index one past the last game piece words may start on
+     * @param found Collection the words found are added to, which must be
+     *              thread safe when streaming with more than one thread unless
+     *              ids is given, in which case only new words are added to it
+     * @param ids Set the IDs of the words found are added to, shared by every
+     *            thread, or null to tell new words apart with found itself
+     * @param sink Where the words found are sent, or null to only collect them
+     * @param order Game piece to start on at each position from fromCell to toCell, in the order they
+     *              are to be searched, or null to start on the game pieces fromCell to toCell in turn
+     */
+    private void search(int parallelism, int fromCell, int toCell, Collection<String> found, WordIdSet ids,
+                        WordSink sink, int[] order) {
+        if(parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        cancelled = false;
+        long version = dictionary.getVersion();
+        int before = ids != null ? ids.size() : found.size();
+        startMetrics(toCell - fromCell);
+        try {
+            if(parallelism == 1 || GUI_ENABLED) {
+                SearchState state = new SearchState(gameBoard.size(), found, ids, sink, budgeted);
+                for(int i = fromCell; i < toCell && !cancelled; ++i) {
+                    int cell = order == null ? i : order[i];
+                    searchFrom(state, cell / cols, cell % cols);
+                }
+            } else {
+                ForkJoinPool pool = new ForkJoinPool(parallelism);
+                try {
+                    // A budgeted search takes its cells one at a time so the best ones go first
+                    int chunk = order != null ? 1
+                            : Math.max(1, (toCell - fromCell) / (parallelism * CHUNKS_PER_WORKER));
+                    Collection<String> merged = pool.invoke(new StartCellTask(order, new AtomicInteger(fromCell),
+                            toCell, chunk, sink != null && ids == null ? found : null, ids, sink, parallelism));
+                    if(merged != found) {
+                        found.addAll(merged);
+                    }
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        } catch(IndexOutOfBoundsException e) {
+            // A word ID past the end of the set means the dictionary grew under the search
+            if(ids != null && dictionary.getVersion() != version) {
+                throw new ConcurrentModificationException("The dictionary changed during the search.", e);
+            }
+            throw e;
+        }
+        finishMetrics((ids != null ? ids.size() : found.size()) - before);
+        if(ids != null && dictionary.getVersion() != version) {
+            throw new ConcurrentModificationException("The dictionary changed during the search.");
+        }
+    }
+
+    /**
+     * Returns the set the IDs of the words found are kept in, if the search
+     * can still use it. Word IDs are positions among the dictionary's words,
+     * so once the dictionary changes the words found so far are moved into
+     * the found words and this and every later search collects the words
+     * themselves.
+     * @return The IDs of the words found, or null if the search is to collect words
+     */
+    private WordIdSet foundIds() {
+        if(foundIds != null && dictionary.getVersion() != idsVersion) {
+            getResults();
+            foundIds = null;
+        }
+        return foundIds;
+    }
+
+    /**
+     * Returns what the current or last search has done. During a search the
+     * totals cover the start cells finished so far.
+     * @return Snapshot of the search metrics
+     */
+    public SearchMetrics getMetrics() {
+        synchronized(metricsLock) {
+            return new SearchMetrics(nodesVisited, prunes, wordHits, wordMisses, maxDepth, wordsFound,
+                    cellsSearched, searchCells, cellNanos.clone(),
+                    searchNanos >= 0 ? searchNanos : System.nanoTime() - searchStart);
+        }
+    }
+
+    /**
+     * Clears the metrics totals as a search starts
+     * @param cells Number of start cells the search is given
+     */
+    private void startMetrics(int cells) {
+        synchronized(metricsLock) {
+            nodesVisited = 0;
+            prunes = 0;
+            wordHits = 0;
+            wordMisses = 0;
+            maxDepth = 0;
+            wordsFound = 0;
+            cellsSearched = 0;
+            cellsFinished = 0;
+            searchCells = cells;
+            cellNanos = new long[gameBoard.size()];
+            searchStart = System.nanoTime();
+            searchNanos = -1;
+        }
+    }
+
+    /**
+     * Adds the counters of a search thread to the metrics totals once it has
+     * finished a start cell, and clears them for the next one
+     * @param state The search that finished the start cell
+     * @param cell Index of the start cell
+     * @param nanos Nanoseconds spent searching from the start cell
+     * @param finished Whether the search was not stopped partway through the start cell
+     */
+    private void recordCell(SearchState state, int cell, long nanos, boolean finished) {
+        synchronized(metricsLock) {
+            nodesVisited += state.nodesVisited;
+            prunes += state.prunes;
+            wordHits += state.wordHits;
+            wordMisses += state.wordMisses;
+            maxDepth = Math.max(maxDepth, state.maxDepth);
+            wordsFound += state.wordsFound;
+            cellNanos[cell] = nanos;
+            ++cellsSearched;
+            if(finished) {
+                ++cellsFinished;
+            }
+        }
+        state.nodesVisited = 0;
+        state.prunes = 0;
+        state.wordHits = 0;
+        state.wordMisses = 0;
+        state.wordsFound = 0;
+    }
+
+    /**
+     * Records the end of a search
+     * @param found Number of distinct words the search added to the found
+     *              words, which replaces the running count since threads may
+     *              find the same word
+     */
+    private void finishMetrics(int found) {
+        synchronized(metricsLock) {
+            wordsFound = found;
+            searchNanos = System.nanoTime() - searchStart;
+        }
+    }
+
+    /**
+     * Searches for every word starting on the game piece at row, col, and
+     * records a SearchCellEvent for it when the flight recorder is running
+     * @param state The search to be run
+     * @param row Row of the starting game piece
+     * @param col Column of the starting game piece
+     */
+    private void searchFrom(SearchState state, int row, int col) {
+        SearchCellEvent event = new SearchCellEvent();
+        event.begin();
+        long start = System.nanoTime();
+        state.nodes[0] = graph != null ? graph.root() : 0;
+        state.cutShort = false;
+        recursiveSearch(state, row * cols + col);
+        long nanos = System.nanoTime() - start;
+        boolean finished = !state.cutShort;
+        if(state.budgeted) {
+            spendBudget(state);
+        }
+        event.end();
+        if(event.shouldCommit()) {
+            event.row = row;
+            event.col = col;
+            event.letter = letters[row * cols + col];
+            event.nodesVisited = state.nodesVisited;
+            event.wordsFound = state.wordsFound;
+            event.commit();
+        }
+        recordCell(state, row * cols + col, nanos, finished);
+    }
+
+    /**
+     * Returns the moves allowed between the game pieces of a word
+     * @return The topology of the game board
+     */
+    public Topology getTopology() {
+        return topology;
+    }
+
     /**
      * Returns the collection of words to the driver application so they can be
-     * printed to a file and displayed to the user.
+     * printed to a file and displayed to the user. When the search collected
+     * word IDs, the new words it found are sorted into the results here.
      * @return The collection of words found during the search
      */
+    @Override
     public Collection<String> getResults() {
+        if(!newWords.isEmpty()) {
+            foundWords.addAll(newWords);
+            newWords.clear();
+        }
         return foundWords;
     }
 
+    /**
+     * Everything one search changes as it wanders the game board. Each thread
+     * searching the board has its own, so searches never share any state.
+     */
+    private static class SearchState {
+        /**
+         * Whether each game piece is part of the current word
+         */
+        private final boolean[] visited;
+
+        /**
+         * The word that is currently being built, as it appears on the board
+         */
+        private final char[] word = new char[MAX_WORD_LENGTH];
+
+        /**
+         * The word that is currently being built in lower case
+         */
+        private final char[] lowerWord = new char[MAX_WORD_LENGTH];
+
+        /**
+         * The lower case word as a CharSequence, for looking it up in a
+         * dictionary that is not a word graph
+         */
+        private final LetterBuffer lookup = new LetterBuffer(lowerWord);
+
+        /**
+         * Word graph node of each prefix of the current word, starting with the
+         * empty prefix
+         */
+        private final int[] nodes = new int[MAX_WORD_LENGTH + 1];
+
+        /**
+         * Word ID of each prefix of the current word, starting with the empty
+         * prefix, when this search collects word IDs. Worked out when a word
+         * is found, for the letters from idLength on.
+         */
+        private final int[] wordIds = new int[MAX_WORD_LENGTH + 1];
+
+        /**
+         * Length of the longest prefix of the current word whose ID is in wordIds
+         */
+        private int idLength;
+
+        /**
+         * Number of letters in the current word
+         */
+        private int length;
+
+        /**
+         * Words found by this search, or only the new ones if it collects word IDs
+         */
+        private final Collection<String> found;
+
+        /**
+         * IDs of the words found by this search, or null if it collects the words
+         */
+        private final WordIdSet ids;
+
+        /**
+         * Prefixes stepped onto since the last start cell was recorded
+         */
+        private long nodesVisited;
+
+        /**
+         * Prefix lookups that missed since the last start cell was recorded
+         */
+        private long prunes;
+
+        /**
+         * Word lookups that hit since the last start cell was recorded
+         */
+        private long wordHits;
+
+        /**
+         * Word lookups that missed since the last start cell was recorded
+         */
+        private long wordMisses;
+
+        /**
+         * Words new to the found collection since the last start cell was recorded
+         */
+        private int wordsFound;
+
+        /**
+         * Longest prefix this search has stepped onto
+         */
+        private int maxDepth;
+
+        /**
+         * Where words new to the found collection are sent, or null if they are only collected
+         */
+        private final WordSink sink;
+
+        /**
+         * Whether this search checks a budget as it goes
+         */
+        private final boolean budgeted;
+
+        /**
+         * Prefixes stepped onto since the budget was last checked
+         */
+        private int unspentNodes;
+
+        /**
+         * Whether the search was stopped before it had searched every path from the current start cell
+         */
+        private boolean cutShort;
+
+        /**
+         * Creates the state for a new search
+         * @param boardSize Number of game pieces on the board
+         * @param found Collection that found words are added to, or only new ones if ids is given
+         * @param ids Set that the IDs of found words are added to, or null
+         * @param sink Where words new to the found collection are sent, or null
+         * @param budgeted Whether the search checks a budget as it goes
+         */
+        private SearchState(int boardSize, Collection<String> found, WordIdSet ids, WordSink sink,
+                            boolean budgeted) {
+            visited = new boolean[boardSize];
+            this.found = found;
+            this.ids = ids;
+            this.sink = sink;
+            this.budgeted = budgeted;
+        }
+    }
+
+    /**
+     * Fork-join task that searches start cells until none are left. Each task
+     * is one worker with one SearchState, which it reuses for every start cell
+     * it takes, so a search allocates the same amount however large the board
+     * is. The workers take chunks of start cells from a shared cursor as they
+     * go, so a part of the board with many words does not hold the others
+     * up. A task for several workers forks a task for the rest before
+     * searching.
+     */
+    @SuppressWarnings("serial")
+    private class StartCellTask extends RecursiveTask<Collection<String>> {
+        /**
+         * Game piece to start on at each position, or null to start on the
+         * game piece at each position
+         */
+        private final int[] order;
+
+        /**
+         * Position of the next chunk of start cells to search, shared by every worker
+         */
+        private final AtomicInteger next;
+
+        /**
+         * Position one past the last start cell to search
+         */
+        private final int to;
+
+        /**
+         * Number of start cells a worker takes at a time
+         */
+        private final int chunk;
+
+        /**
+         * Thread safe collection shared by every task when streaming, or null
+         * for each task to collect its own words
+         */
+        private final Collection<String> shared;
+
+        /**
+         * Set of word IDs shared by every task, or null if the tasks collect words
+         */
+        private final WordIdSet ids;
+
+        /**
+         * Where new words are sent, or null if they are only collected
+         */
+        private final WordSink sink;
+
+        /**
+         * Number of workers this task and the tasks it forks make up
+         */
+        private final int workers;
+
+        /**
+         * Creates a task that takes start cells until none are left
+         * @param order Game piece to start on at each position, or null to start on the game
+         *              piece at each position
+         * @param next Position of the next chunk of start cells, shared by every worker
+         * @param to Position one past the last start cell
+         * @param chunk Number of start cells a worker takes at a time
+         * @param shared Collection shared by every task, or null for each task to collect its own words
+         * @param ids Set of word IDs shared by every task, or null if the tasks collect words
+         * @param sink Where new words are sent, or null
+         * @param workers Number of workers this task and the tasks it forks make up
+         */
+        private StartCellTask(int[] order, AtomicInteger next, int to, int chunk, Collection<String> shared,
+                              WordIdSet ids, WordSink sink, int workers) {
+            this.order = order;
+            this.next = next;
+            this.to = to;
+            this.chunk = chunk;
+            this.shared = shared;
+            this.ids = ids;
+            this.sink = sink;
+            this.workers = workers;
+        }
+
+        /**
+         * Searches start cells until none are left or the search is stopped
+         * @return Words found by this task and the tasks it forked, or the shared
+         *         collection if there is one. With a shared set of word IDs, each
+         *         word is found by one task only.
+         */
+        @Override
+        protected Collection<String> compute() {
+            StartCellTask others = null;
+            if(workers > 1) {
+                others = new StartCellTask(order, next, to, chunk, shared, ids, sink, workers - 1);
+                others.fork();
+            }
+            Collection<String> found;
+            if(shared != null) {
+                found = shared;
+            } else if(ids != null) {
+                found = new ArrayList<>();
+            } else {
+                found = new TreeSet<>();
+            }
+            SearchState state = new SearchState(gameBoard.size(), found, ids, sink, budgeted);
+            for(int start; !cancelled && (start = next.getAndAdd(chunk)) < to; ) {
+                int end = Math.min(start + chunk, to);
+                for(int i = start; i < end && !cancelled; ++i) {
+                    int cell = order == null ? i : order[i];
+                    searchFrom(state, cell / cols, cell % cols);
+                }
+            }
+            if(others != null) {
+                Collection<String> othersFound = others.join();
+                if(othersFound != found) {
+                    found.addAll(othersFound);
+                }
+            }
+            return found;
+        }
+    }
 }
@@ -0,0 +1,70 @@
+package lab6.guswilerib;
+
+/**
+ * A word structure that can be walked one letter at a time. Every node in the
+ * graph stands for a prefix of one or more words, which lets a search stop as
+ * soon as the letters it has collected can no longer lead to a word.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public interface WordGraph {
+    /**
+     * Returned by {@link #child(int, char)} when no word continues with the letter
+     */
+    int NO_NODE = -1;
+
+    /**
+     * Returns the node representing the empty prefix
+     * @return the root node of the graph
+     */
+    int root();
+
+    /**
+     * Follows the edge labeled with the given letter out of a node
+     * @param node node to start from
+     * @param letter letter to follow
+     * @return the node reached, or {@link #NO_NODE} if no word continues with the letter
+     */
+    int child(int node, char letter);
+
+    /**
+     * Checks if the prefix represented by a node is a complete word
+     * @param node node to be checked
+     * @return true if the path to the node spells a word
+     */
+    boolean isWord(int node);
+
+    /**
+     * Returns the ID of a word. A word's ID is its position in alphabetical
+     * order, so IDs run from 0 up to the number of words in the graph and
+     * every word has a different one.
+     * @param letters letters of the word, starting at index 0
+     * @param length number of letters in the word
+     * @return the ID of the word, or -1 if it is not in the graph
+     */
+    int wordId(char[] letters, int length);
+
+    /**
+     * Returns how much a word's ID grows by at one of its letters: the number
+     * of words that start with a node's prefix and come before every word
+     * that continues it with the letter, counting the prefix itself if it is
+     * a word. Adding these up over the letters of a word, from the root,
+     * gives its ID, so a search can keep the ID of the word it is building as
+     * it goes instead of calling wordId for each word it finds.
+     * @param node node reached by the letters before
+     * @param letter next letter, which must lead to a child of the node
+     * @return words before those through the child, from 0 up to the number of words
+     */
+    int wordsBefore(int node, char letter);
+
+    /**
+     * Returns how many more letters the longest word through a node has, so
+     * a search can give up on a prefix that needs more letters than any word
+     * starting with it has left
+     * @param node node to be checked
+     * @return letters in the longest word through the node after the path to it
+     */
+    int height(int node);
+
+}
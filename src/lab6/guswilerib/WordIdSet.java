@@ -0,0 +1,58 @@
+package lab6.guswilerib;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Set of word IDs kept as one bit per word in the dictionary. Adding an ID
+ * takes constant time and allocates nothing, and several threads can add to
+ * the same set at once without locking: each bit is set with a
+ * compare-and-set on the word of bits holding it, and an ID that is already
+ * in the set is turned away by a plain read without writing anything.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+final class WordIdSet {
+    /**
+     * Bits of the set, 64 IDs to each element
+     */
+    private final AtomicLongArray bits;
+
+    /**
+     * Creates an empty set
+     * @param capacity number of IDs the set can hold, from 0 up to capacity - 1
+     */
+    WordIdSet(int capacity) {
+        bits = new AtomicLongArray((capacity + 63) >>> 6);
+    }
+
+    /**
+     * Adds an ID to the set
+     * @param id ID to add
+     * @return true if the ID was not already in the set
+     */
+    boolean add(int id) {
+        int index = id >>> 6;
+        long bit = 1L << id;
+        long old;
+        do {
+            old = bits.get(index);
+            if((old & bit) != 0) {
+                return false;
+            }
+        } while(!bits.compareAndSet(index, old, old | bit));
+        return true;
+    }
+
+    /**
+     * Returns the number of IDs in the set
+     * @return number of bits set
+     */
+    int size() {
+        int size = 0;
+        for(int i = 0; i < bits.length(); i++) {
+            size += Long.bitCount(bits.get(i));
+        }
+        return size;
+    }
+}
@@ -0,0 +1,46 @@
+package lab6.guswilerib;
+
+import java.util.Collection;
+
+/**
+ * Something that can find the dictionary words on a game board. Every engine
+ * finds the same words for the same board, dictionary and topology; they only
+ * differ in how quickly they get there.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public interface WordSearchEngine {
+    /**
+     * Searches the game board for words
+     */
+    void startSearching();
+
+    /**
+     * Searches the game board for words, handing each word to a sink as soon
+     * as it is found rather than keeping it for getResults. Engines that cannot
+     * stream their words hand them over once the search is done.
+     * @param sink Where the words found are sent, which can cancel the search
+     */
+    default void startSearching(WordSink sink) {
+        startSearching();
+        for(String word : getResults()) {
+            if(!sink.accept(word)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Stops a search running on another thread. The search returns soon
+     * after, and the words it found so far may not be all of the words on
+     * the game board. Cancelling when no search is running does nothing.
+     */
+    void cancel();
+
+    /**
+     * Returns the words found on the game board, in alphabetical order
+     * @return The collection of words found during the search
+     */
+    Collection<String> getResults();
+}
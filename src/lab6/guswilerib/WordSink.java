@@ -0,0 +1,20 @@
+package lab6.guswilerib;
+
+/**
+ * Receives the words found by a search as soon as they are found, instead of
+ * waiting for the search to finish and asking for its results. A sink slows
+ * the search down simply by taking its time: the search does not continue
+ * until the sink has accepted the word. Returning false cancels the search.
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public interface WordSink {
+    /**
+     * Receives a newly found word. Each word is handed over once, and never
+     * from more than one thread at a time.
+     * @param word The word found, as it appears on the board
+     * @return <tt>true</tt> to keep searching, <tt>false</tt> to cancel the search
+     */
+    boolean accept(String word);
+}
@@ -0,0 +1,157 @@
+package lab6.guswilerib;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a search on a background thread and hands the words it finds to the
+ * caller one at a time, as they are found. Found words wait in a small queue;
+ * when the caller falls behind and the queue fills up, the search waits for
+ * it rather than piling up words. Closing the stream cancels the search.
+ * <br />
+ * <br />
+ * <pre>
+ * try(WordStream words = new WordStream(finder, 64)) {
+ *     while(words.hasNext()) {
+ *         show(words.next());
+ *     }
+ * }
+ * </pre>
+ *
+ * @author Ian Guswiler
+ * @version 10/18/26
+ */
+public class WordStream implements Iterator<String>, Closeable {
+    /**
+     * Put in the queue after the last word. Compared by identity, so no word can be mistaken for it.
+     */
+    private static final String END = new String("");
+
+    /**
+     * How long a full queue is waited on before checking if the stream was closed
+     */
+    private static final long OFFER_MILLIS = 10;
+
+    /**
+     * Words found but not yet taken by the caller
+     */
+    private final BlockingQueue<String> queue;
+
+    /**
+     * Search running in the background
+     */
+    private final WordSearchEngine engine;
+
+    /**
+     * Set once the caller closes the stream, which cancels the search
+     */
+    private volatile boolean closed;
+
+    /**
+     * What stopped the search, if it did not finish normally
+     */
+    private volatile RuntimeException failure;
+
+    /**
+     * Next word to be returned, or null if it has not been taken from the queue yet
+     */
+    private String next;
+
+    /**
+     * Starts searching in the background
+     * @param engine Search to run
+     * @param capacity Number of found words that can wait for the caller before the search waits
+     */
+    public WordStream(final WordSearchEngine engine, int capacity) {
+        this.engine = engine;
+        queue = new ArrayBlockingQueue<>(capacity);
+        Thread searcher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    engine.startSearching(new WordSink() {
+                        @Override
+                        public boolean accept(String word) {
+                            return offer(word);
+                        }
+                    });
+                } catch(RuntimeException e) {
+                    failure = e;
+                } finally {
+                    offer(END);
+                }
+            }
+        }, "word-stream");
+        searcher.setDaemon(true);
+        searcher.start();
+    }
+
+    /**
+     * Checks if the search has found another word, waiting for it if needed
+     * @return <tt>true</tt> if there is another word, <tt>false</tt> once the search is done
+     * @throws RuntimeException if the search failed
+     */
+    @Override
+    public boolean hasNext() {
+        if(next == null && !closed) {
+            try {
+                next = queue.take();
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+            }
+        }
+        if(next == END && failure != null) {
+            throw failure;
+        }
+        return next != null && next != END && !closed;
+    }
+
+    /**
+     * Returns the next word found, waiting for it if needed
+     * @return the word, as it appears on the board
+     */
+    @Override
+    public String next() {
+        if(!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String word = next;
+        next = null;
+        return word;
+    }
+
+    /**
+     * Cancels the search if it is still running, so it stops walking the
+     * board rather than only stopping at the next word it finds. Words
+     * already found and not yet taken are thrown away.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        engine.cancel();
+        queue.clear();
+    }
+
+    /**
+     * Waits for room in the queue and adds a word to it
+     * @param word Word to add
+     * @return <tt>true</tt> if the word was added, <tt>false</tt> if the stream was closed first
+     */
+    private boolean offer(String word) {
+        try {
+            while(!closed) {
+                if(queue.offer(word, OFFER_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+}